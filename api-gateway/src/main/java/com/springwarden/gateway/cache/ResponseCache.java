@@ -0,0 +1,108 @@
+package com.springwarden.gateway.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Bounded cache of upstream responses for routes that opt in through ResponseCacheFilter.
+ * The bound is in bytes (body, headers and key, approximately), so heap use stays predictable whatever
+ * the mix of response sizes. Entries expire after their route's TTL, so every route shares the bound
+ * but not the freshness.
+ * Hit ratio is exported under gateway.responses (cache_gets with result=hit|miss).
+ */
+@Component
+public class ResponseCache {
+
+    private final boolean enabled;
+    // Rough per-entry cost of the key, record, header map and Caffeine node beyond their string contents.
+    private static final int ENTRY_OVERHEAD_BYTES = 256;
+
+    private final int maxBodyBytes;
+    private final Cache<String, CachedResponse> cache;
+
+    public ResponseCache(@Value("${gateway.response-cache.enabled:true}") boolean enabled,
+                         @Value("${gateway.response-cache.max-bytes:64MB}") DataSize maxBytes,
+                         @Value("${gateway.response-cache.max-body-bytes:65536}") int maxBodyBytes,
+                         MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxBodyBytes = maxBodyBytes;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes.toBytes())
+                .weigher(ResponseCache::weigh)
+                .expireAfter(new RouteTtlExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "gateway.responses");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getMaxBodyBytes() {
+        return maxBodyBytes;
+    }
+
+    public Optional<CachedResponse> get(String key) {
+        return Optional.ofNullable(cache.getIfPresent(key));
+    }
+
+    /**
+     * Stores the response unless its body exceeds gateway.response-cache.max-body-bytes.
+     * @return true if it was stored.
+     */
+    public boolean put(String key, CachedResponse response) {
+        if (response.body().length > maxBodyBytes) {
+            return false;
+        }
+        cache.put(key, response);
+        return true;
+    }
+
+    private static int weigh(String key, CachedResponse response) {
+        long bytes = ENTRY_OVERHEAD_BYTES + 2L * key.length() + response.body().length;
+        for (Map.Entry<String, List<String>> header : response.headers().entrySet()) {
+            bytes += 2L * header.getKey().length();
+            for (String value : header.getValue()) {
+                bytes += 2L * value.length();
+            }
+        }
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+
+    /**
+     * A complete upstream response. Headers are a read-only copy without per-connection headers.
+     */
+    public record CachedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body, Duration ttl) {}
+
+    private static final class RouteTtlExpiry implements Expiry<String, CachedResponse> {
+
+        @Override
+        public long expireAfterCreate(String key, CachedResponse value, long currentTime) {
+            return value.ttl().toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CachedResponse value, long currentTime, long currentDuration) {
+            return value.ttl().toNanos();
+        }
+
+        @Override
+        public long expireAfterRead(String key, CachedResponse value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.springwarden.gateway.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.springwarden.common.util.JwtPrincipal;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Bounded cache of already-verified access tokens.
+ * Clients reuse the same token for its whole lifetime, so a hit lets the gateway skip
+ * signature verification and claim parsing entirely. Entries are keyed by a SHA-256 digest
+ * of the token (the raw token is never retained) and never outlive the token's own exp claim.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final boolean enabled;
+    private final Cache<String, CachedPrincipal> cache;
+
+    public VerifiedTokenCache(@Value("${gateway.token-cache.enabled:true}") boolean enabled,
+                              @Value("${gateway.token-cache.max-size:100000}") long maxSize,
+                              @Value("${gateway.token-cache.max-ttl:PT5M}") Duration maxTtl,
+                              MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new TokenExpiry(maxTtl))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "gateway.verified-tokens");
+    }
+
+    public Optional<CachedPrincipal> get(String token) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(cache.getIfPresent(digest(token)));
+    }
+
+    public CachedPrincipal put(String token, JwtPrincipal principal) {
+        CachedPrincipal cached = new CachedPrincipal(principal, String.join(",", principal.roles()));
+        if (enabled) {
+            cache.put(digest(token), cached);
+        }
+        return cached;
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is mandatory on every Java platform.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A verified principal together with the pre-joined roles header,
+     * so a cache hit only has to mutate request headers.
+     */
+    public record CachedPrincipal(JwtPrincipal principal, String rolesHeader) {}
+
+    private record TokenExpiry(Duration maxTtl) implements Expiry<String, CachedPrincipal> {
+
+        @Override
+        public long expireAfterCreate(String key, CachedPrincipal value, long currentTime) {
+            long maxNanos = maxTtl.toNanos();
+            Instant expiresAt = value.principal().expiresAt();
+            if (expiresAt == null) {
+                return maxNanos;
+            }
+            long remaining = Duration.between(Instant.now(), expiresAt).toNanos();
+            return Math.max(0, Math.min(remaining, maxNanos));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CachedPrincipal value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, CachedPrincipal value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -1,34 +1,105 @@
 package com.springwarden.gateway.config;
 
 import com.springwarden.gateway.filter.JwtAuthenticationFilter;
+import com.springwarden.gateway.filter.RateLimitFilter;
+import com.springwarden.gateway.filter.ResponseCacheFilter;
 import com.springwarden.gateway.filter.RoleBasedAccessFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 import org.springframework.cloud.gateway.route.RouteLocator;
 import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpMethod;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Function;
 
 @Configuration
+@EnableScheduling
 public class GatewayConfig {
 
+    /**
+     * WebClient builder that resolves lb:// style service names through Eureka.
+     * Used for gateway-initiated calls such as fetching the JWKS from auth-service.
+     */
+    @Bean
+    @LoadBalanced
+    public WebClient.Builder loadBalancedWebClientBuilder() {
+        return WebClient.builder();
+    }
+
+    /**
+     * Bounded pool that JwtAuthenticationFilter hands signature verification to when
+     * gateway.jwt.offload.enabled is set. Tasks beyond queue-capacity are rejected rather than queued.
+     */
+    @Bean(destroyMethod = "dispose")
+    @ConditionalOnProperty(name = "gateway.jwt.offload.enabled", havingValue = "true")
+    public Scheduler jwtVerificationScheduler(
+            @Value("${gateway.jwt.offload.threads:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}") int threads,
+            @Value("${gateway.jwt.offload.queue-capacity:1024}") int queueCapacity) {
+        return Schedulers.newBoundedElastic(threads, queueCapacity, "jwt-verify");
+    }
+
     @Bean
     public RouteLocator customRouteLocator(RouteLocatorBuilder builder,
                                            JwtAuthenticationFilter jwtFilter,
-                                           RoleBasedAccessFilter roleFilter) {
+                                           RoleBasedAccessFilter roleFilter,
+                                           RateLimitFilter rateLimitFilter,
+                                           ResponseCacheFilter responseCacheFilter,
+                                           Environment environment,
+                                           @Value("${gateway.rate-limit.public.capacity:10}") int publicCapacity,
+                                           @Value("${gateway.rate-limit.public.tokens-per-second:1}") double publicRate,
+                                           @Value("${gateway.rate-limit.authenticated.capacity:100}") int authenticatedCapacity,
+                                           @Value("${gateway.rate-limit.authenticated.tokens-per-second:50}") double authenticatedRate,
+                                           @Value("${gateway.response-cache.profiles.ttl:PT30S}") Duration profileCacheTtl,
+                                           @Value("${gateway.response-cache.profiles.vary-by:ROLES}") ResponseCacheFilter.VaryBy profileCacheVaryBy,
+                                           @Value("${gateway.response-cache.profiles.collapse:true}") boolean profileCacheCollapse) {
+        // Public routes have no principal, so they are limited per client IP.
+        RateLimitFilter.Config publicLimit = createRateLimitConfig(publicCapacity, publicRate, RateLimitFilter.KeyBy.IP);
+        RateLimitFilter.Config authenticatedLimit =
+                createRateLimitConfig(authenticatedCapacity, authenticatedRate, RateLimitFilter.KeyBy.PRINCIPAL);
+        // gateway.rate-limit.routes.<route id>.* overrides the tier default for a single route.
+        Function<String, RateLimitFilter.Config> publicLimitFor = id -> routeRateLimit(environment, id, publicLimit);
+        Function<String, RateLimitFilter.Config> authenticatedLimitFor =
+                id -> routeRateLimit(environment, id, authenticatedLimit);
+        ResponseCacheFilter.Config profileCache =
+                createResponseCacheConfig(profileCacheTtl, profileCacheVaryBy, profileCacheCollapse);
+
         return builder.routes()
                 // --- AUTH SERVICE ROUTES ---
 
-                // 1. Public endpoints for authentication (NO JWT filter)
-                .route("auth-service-public", r -> r
-                        .path("/auth/login", "/auth/register", "/auth/refresh")
+                // 1. Public endpoints for authentication (NO JWT filter, rate limited per client IP)
+                // Split by purpose so credential checks, token exchange and key discovery get their own limits.
+                .route("auth-service-login", r -> r
+                        .path("/auth/login", "/auth/register")
+                        .filters(f -> f.filter(rateLimitFilter.apply(publicLimitFor.apply("auth-service-login"))))
+                        .uri("lb://auth-service"))
+
+                .route("auth-service-token", r -> r
+                        .path("/auth/refresh", "/auth/revoke")
+                        .filters(f -> f.filter(rateLimitFilter.apply(publicLimitFor.apply("auth-service-token"))))
+                        .uri("lb://auth-service"))
+
+                .route("auth-service-jwks", r -> r
+                        .path("/auth/.well-known/jwks.json")
+                        .filters(f -> f.filter(rateLimitFilter.apply(publicLimitFor.apply("auth-service-jwks"))))
                         .uri("lb://auth-service"))
 
                 // 2. Protected endpoints for token validation and user info (Requires a valid JWT)
                 .route("auth-service-protected", r -> r
-                        .path("/auth/validate", "/auth/user")
-                        .filters(f -> f.filter(jwtFilter.apply(new JwtAuthenticationFilter.Config())))
+                        .path("/auth/validate", "/auth/introspect", "/auth/user")
+                        .filters(f -> f
+                                .filter(jwtFilter.apply(new JwtAuthenticationFilter.Config()))
+                                .filter(rateLimitFilter.apply(authenticatedLimitFor.apply("auth-service-protected"))))
                         .uri("lb://auth-service"))
 
 
@@ -41,14 +112,28 @@ public class GatewayConfig {
                         .path("/api/users/admin/**")
                         .filters(f -> f
                                 .filter(jwtFilter.apply(new JwtAuthenticationFilter.Config()))
+                                .filter(rateLimitFilter.apply(authenticatedLimitFor.apply("user-service-admin")))
                                 .filter(roleFilter.apply(createRoleConfig("ADMIN"))))
                         .uri("lb://user-service"))
 
-                // 4. General user endpoints (Requires JWT + any valid role)
+                // 4. Profile lookups by id or email (Requires JWT + any valid role, responses cached)
+                // The numeric id pattern keeps /api/users/profile, which depends on the caller, out of the cache.
+                .route("user-service-profiles", r -> r
+                        .method(HttpMethod.GET)
+                        .and().path("/api/users/{id:\\d+}", "/api/users/email/{email}")
+                        .filters(f -> f
+                                .filter(jwtFilter.apply(new JwtAuthenticationFilter.Config()))
+                                .filter(rateLimitFilter.apply(authenticatedLimitFor.apply("user-service-profiles")))
+                                .filter(roleFilter.apply(createRoleConfig("USER", "MANAGER", "ADMIN")))
+                                .filter(responseCacheFilter.apply(profileCache)))
+                        .uri("lb://user-service"))
+
+                // 5. General user endpoints (Requires JWT + any valid role)
                 .route("user-service-user", r -> r
                         .path("/api/users/**")
                         .filters(f -> f
                                 .filter(jwtFilter.apply(new JwtAuthenticationFilter.Config()))
+                                .filter(rateLimitFilter.apply(authenticatedLimitFor.apply("user-service-user")))
                                 .filter(roleFilter.apply(createRoleConfig("USER", "MANAGER", "ADMIN"))))
                         .uri("lb://user-service"))
 
@@ -65,4 +150,48 @@ public class GatewayConfig {
         config.setRoles(List.of(roles));
         return config;
     }
+
+    /**
+     * Helper method to create a RateLimitFilter configuration.
+     * @param capacity        Requests a client may burst after a quiet period.
+     * @param tokensPerSecond Sustained requests per second per client.
+     * @param keyBy           Whether clients are told apart by principal or by IP.
+     * @return A configuration object for the RateLimitFilter.
+     */
+    private RateLimitFilter.Config createRateLimitConfig(int capacity, double tokensPerSecond, RateLimitFilter.KeyBy keyBy) {
+        RateLimitFilter.Config config = new RateLimitFilter.Config();
+        config.setCapacity(capacity);
+        config.setTokensPerSecond(tokensPerSecond);
+        config.setKeyBy(keyBy);
+        return config;
+    }
+
+    /**
+     * Helper method to resolve a route's rate limit from gateway.rate-limit.routes.<routeId>.*.
+     * @param routeId  The id of the route being limited.
+     * @param defaults The tier's limit, used for every property the route does not set.
+     * @return A configuration object for the RateLimitFilter.
+     */
+    private RateLimitFilter.Config routeRateLimit(Environment environment, String routeId, RateLimitFilter.Config defaults) {
+        String prefix = "gateway.rate-limit.routes." + routeId + ".";
+        return createRateLimitConfig(
+                environment.getProperty(prefix + "capacity", Integer.class, defaults.getCapacity()),
+                environment.getProperty(prefix + "tokens-per-second", Double.class, defaults.getTokensPerSecond()),
+                environment.getProperty(prefix + "key-by", RateLimitFilter.KeyBy.class, defaults.getKeyBy()));
+    }
+
+    /**
+     * Helper method to create a ResponseCacheFilter configuration.
+     * @param ttl      How long a cached response is served.
+     * @param varyBy   What besides the path the cache key includes.
+     * @param collapse Whether concurrent misses for one key share a single upstream call.
+     * @return A configuration object for the ResponseCacheFilter.
+     */
+    private ResponseCacheFilter.Config createResponseCacheConfig(Duration ttl, ResponseCacheFilter.VaryBy varyBy, boolean collapse) {
+        ResponseCacheFilter.Config config = new ResponseCacheFilter.Config();
+        config.setTtl(ttl);
+        config.setVaryBy(varyBy);
+        config.setCollapse(collapse);
+        return config;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,54 @@
+package com.springwarden.gateway.config;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+public class KafkaConsumerConfig {
+
+    @Value("${spring.kafka.bootstrap-servers:localhost:9092}")
+    private String bootstrapServers;
+
+    @Value("${spring.application.name:api-gateway}")
+    private String applicationName;
+
+    // Spring Cloud's default Eureka instance id (host:port) unless one is configured.
+    @Value("${eureka.instance.instance-id:${spring.cloud.client.hostname}:${server.port:8080}}")
+    private String instanceId;
+
+    /**
+     * Consumer for token-revocations. The group id is unique per instance, so every gateway reads every
+     * revocation. It is derived from the instance id rather than generated, so a restart rejoins the same
+     * group instead of orphaning one on the broker; RevokedTokenRegistry seeks to the beginning on every
+     * assignment, so a restarted gateway still replays every revocation within retention.
+     */
+    @Bean
+    public ConsumerFactory<String, Object> tokenRevocationConsumerFactory() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, applicationName + "-revocations-" + instanceId);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
+        props.put(JsonDeserializer.TRUSTED_PACKAGES, "com.springwarden.common.event");
+        return new DefaultKafkaConsumerFactory<>(props);
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> tokenRevocationListenerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(tokenRevocationConsumerFactory());
+        return factory;
+    }
+}
@@ -0,0 +1,41 @@
+package com.springwarden.gateway.filter;
+
+import com.springwarden.common.util.IdentityAssertion;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Drops identity headers sent by clients on every route, public ones included, so the only
+ * X-User-* headers a downstream service ever sees are the ones JwtAuthenticationFilter sets.
+ */
+@Component
+public class IdentityHeaderSanitizer implements GlobalFilter, Ordered {
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        HttpHeaders headers = exchange.getRequest().getHeaders();
+        if (!headers.containsKey(IdentityAssertion.EMAIL_HEADER)
+                && !headers.containsKey(IdentityAssertion.ROLES_HEADER)
+                && !headers.containsKey(IdentityAssertion.HEADER)) {
+            return chain.filter(exchange);
+        }
+        return chain.filter(exchange.mutate()
+                .request(exchange.getRequest().mutate().headers(h -> {
+                    h.remove(IdentityAssertion.EMAIL_HEADER);
+                    h.remove(IdentityAssertion.ROLES_HEADER);
+                    h.remove(IdentityAssertion.HEADER);
+                }).build())
+                .build());
+    }
+
+    @Override
+    public int getOrder() {
+        // Before any route filter, in particular before JwtAuthenticationFilter adds the real headers.
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
@@ -1,38 +1,104 @@
 package com.springwarden.gateway.filter;
 
+import com.springwarden.common.util.IdentityAssertion;
+import com.springwarden.common.util.JwtPrincipal;
 import com.springwarden.common.util.JwtUtil;
+import com.springwarden.gateway.cache.VerifiedTokenCache;
+import com.springwarden.gateway.security.RevokedTokenRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.stereotype.Component;
-import org.springframework.util.AntPathMatcher;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
-import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 @Component
 public class JwtAuthenticationFilter extends AbstractGatewayFilterFactory<JwtAuthenticationFilter.Config> {
 
     private final JwtUtil jwtUtil;
-    private final AntPathMatcher pathMatcher = new AntPathMatcher();
-
-    // These paths will be bypassed by the filter.
-    private final List<String> publicPaths = List.of(
+    private final VerifiedTokenCache tokenCache;
+    private final IdentityAssertion identityAssertion;
+    private final RevokedTokenRegistry revokedTokens;
+    private final Optional<Scheduler> verificationScheduler;
+    // Authentication time up to forwarding, split by whether the token came from the cache or was verified.
+    private final Timer cachedTimer;
+    private final Timer verifiedTimer;
+    private final Timer rejectedTimer;
+    private final Counter missingHeader;
+    private final Counter invalidToken;
+    private final Counter revokedToken;
+    private final Counter overloaded;
+    private final Counter processingError;
+    /**
+     * Exchange attribute holding the verified JwtPrincipal, read by RoleBasedAccessFilter.
+     */
+    public static final String PRINCIPAL_ATTRIBUTE = JwtAuthenticationFilter.class.getName() + ".principal";
+
+    // These paths will be bypassed by the filter. They are exact paths, so a hash lookup is enough.
+    private final Set<String> publicPaths = Set.of(
             "/auth/login",
             "/auth/register",
-            "/auth/refresh"
+            "/auth/refresh",
+            "/auth/revoke"
     );
 
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, VerifiedTokenCache tokenCache, IdentityAssertion identityAssertion,
+                                   RevokedTokenRegistry revokedTokens, MeterRegistry meterRegistry) {
+        this(jwtUtil, tokenCache, identityAssertion, revokedTokens, meterRegistry, Optional.empty());
+    }
+
     @Autowired
-    public JwtAuthenticationFilter(JwtUtil jwtUtil) {
+    public JwtAuthenticationFilter(JwtUtil jwtUtil,
+                                   VerifiedTokenCache tokenCache,
+                                   IdentityAssertion identityAssertion,
+                                   RevokedTokenRegistry revokedTokens,
+                                   MeterRegistry meterRegistry,
+                                   @Qualifier("jwtVerificationScheduler") Optional<Scheduler> verificationScheduler) {
         super(Config.class);
         this.jwtUtil = jwtUtil;
+        this.tokenCache = tokenCache;
+        this.identityAssertion = identityAssertion;
+        this.revokedTokens = revokedTokens;
+        this.verificationScheduler = verificationScheduler;
+        this.cachedTimer = authenticationTimer(meterRegistry, "cache");
+        this.verifiedTimer = authenticationTimer(meterRegistry, "verified");
+        this.rejectedTimer = authenticationTimer(meterRegistry, "rejected");
+        this.missingHeader = rejectionCounter(meterRegistry, "missing_header");
+        this.invalidToken = rejectionCounter(meterRegistry, "invalid_token");
+        this.revokedToken = rejectionCounter(meterRegistry, "revoked");
+        this.overloaded = rejectionCounter(meterRegistry, "overloaded");
+        this.processingError = rejectionCounter(meterRegistry, "error");
+    }
+
+    private static Timer authenticationTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("gateway.jwt.authentication")
+                .description("Time to authenticate a request's bearer token, before forwarding")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private static Counter rejectionCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("gateway.jwt.rejected")
+                .description("Requests rejected by JwtAuthenticationFilter")
+                .tag("reason", reason)
+                .register(meterRegistry);
     }
 
     @Override
@@ -49,34 +115,82 @@ public class JwtAuthenticationFilter extends AbstractGatewayFilterFactory<JwtAut
             String authHeader = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
 
             if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+                missingHeader.increment();
                 return handleUnauthorized(exchange, "Missing or invalid Authorization header");
             }
 
             String token = authHeader.substring(7);
+            long start = System.nanoTime();
 
-            if (!jwtUtil.validateToken(token)) {
-                return handleUnauthorized(exchange, "Invalid or expired JWT token");
+            // Fast path: a token we have already verified skips signature and claim parsing.
+            Optional<VerifiedTokenCache.CachedPrincipal> cached = tokenCache.get(token);
+            if (cached.isPresent()) {
+                return forward(exchange, chain, cached.get(), cachedTimer, start);
             }
 
-            try {
-                String username = jwtUtil.extractUsername(token);
-                Set<String> roles = jwtUtil.extractRoles(token);
-
-                // Add user information to headers for downstream services
-                ServerHttpRequest mutatedRequest = request.mutate()
-                        .header("X-User-Email", username)
-                        .header("X-User-Roles", String.join(",", roles))
-                        .build();
-
-                return chain.filter(exchange.mutate().request(mutatedRequest).build());
-            } catch (Exception e) {
-                return handleUnauthorized(exchange, "Error processing JWT token");
+            if (verificationScheduler.isEmpty()) {
+                return verifyAndForward(exchange, chain, token, start);
             }
+
+            // Offloaded mode: keep signature checks off the Netty event loop. Only the verification itself
+            // is queued on the scheduler, never the rest of the chain, and the queue is bounded, so a flood
+            // of bad tokens is shed with 503s instead of stalling other connections. The timing includes
+            // the wait for a verification thread. The rejection is handled before the chain is resumed, so
+            // only a full verification queue, not a downstream failure, turns into a 503.
+            return Mono.fromCallable(() -> jwtUtil.verify(token))
+                    .subscribeOn(verificationScheduler.get())
+                    .<Supplier<Mono<Void>>>map(principal -> () -> afterVerify(exchange, chain, token, principal, start))
+                    .onErrorResume(RejectedExecutionException.class, e -> Mono.<Supplier<Mono<Void>>>just(() -> {
+                        overloaded.increment();
+                        return handleUnavailable(exchange);
+                    }))
+                    .flatMap(Supplier::get);
         };
     }
 
+    private Mono<Void> verifyAndForward(ServerWebExchange exchange, GatewayFilterChain chain, String token, long start) {
+        return afterVerify(exchange, chain, token, jwtUtil.verify(token), start);
+    }
+
+    private Mono<Void> afterVerify(ServerWebExchange exchange, GatewayFilterChain chain, String token,
+                                   Optional<JwtPrincipal> principal, long start) {
+        if (principal.isEmpty()) {
+            rejectedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            invalidToken.increment();
+            return handleUnauthorized(exchange, "Invalid or expired JWT token");
+        }
+        return forward(exchange, chain, tokenCache.put(token, principal.get()), verifiedTimer, start);
+    }
+
+    private Mono<Void> forward(ServerWebExchange exchange, GatewayFilterChain chain, VerifiedTokenCache.CachedPrincipal principal,
+                               Timer timer, long start) {
+        // Checked on cache hits too: a cached token may have been revoked since it was verified.
+        if (revokedTokens.isRevoked(principal.principal().tokenId())) {
+            rejectedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            revokedToken.increment();
+            return handleUnauthorized(exchange, "Token has been revoked");
+        }
+        try {
+            exchange.getAttributes().put(PRINCIPAL_ATTRIBUTE, principal.principal());
+
+            // Add user information to headers for downstream services, plus a MAC proving they came from us.
+            String email = principal.principal().subject();
+            ServerHttpRequest mutatedRequest = exchange.getRequest().mutate()
+                    .header(IdentityAssertion.EMAIL_HEADER, email)
+                    .header(IdentityAssertion.ROLES_HEADER, principal.rolesHeader())
+                    .header(IdentityAssertion.HEADER, identityAssertion.issue(email, principal.rolesHeader()))
+                    .build();
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+            return chain.filter(exchange.mutate().request(mutatedRequest).build());
+        } catch (Exception e) {
+            processingError.increment();
+            return handleUnauthorized(exchange, "Error processing JWT token");
+        }
+    }
+
     private boolean isPublicPath(String path) {
-        return publicPaths.stream().anyMatch(p -> pathMatcher.match(p, path));
+        return publicPaths.contains(path);
     }
 
     private Mono<Void> handleUnauthorized(ServerWebExchange exchange, String message) {
@@ -87,6 +201,13 @@ public class JwtAuthenticationFilter extends AbstractGatewayFilterFactory<JwtAut
         return response.setComplete();
     }
 
+    private Mono<Void> handleUnavailable(ServerWebExchange exchange) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().add(HttpHeaders.RETRY_AFTER, "1");
+        return response.setComplete();
+    }
+
     // Empty config class as this filter doesn't need specific route configuration.
     public static class Config {}
 }
\ No newline at end of file
@@ -0,0 +1,138 @@
+package com.springwarden.gateway.filter;
+
+import com.springwarden.common.util.JwtPrincipal;
+import com.springwarden.gateway.ratelimit.ClientAddressResolver;
+import com.springwarden.gateway.ratelimit.TokenBucketTable;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-client token-bucket rate limiting, configured per route.
+ * Requests are keyed by the verified principal when JwtAuthenticationFilter ran earlier on the route,
+ * otherwise by the client IP (public routes such as /auth/login). Behind a load balancer the client IP
+ * is taken from Forwarded or X-Forwarded-For, but only when the peer is listed in
+ * gateway.rate-limit.trusted-proxies (see {@link ClientAddressResolver}). Limited requests get a 429 with
+ * Retry-After before anything is forwarded, so they cost auth-service nothing.
+ */
+@Component
+public class RateLimitFilter extends AbstractGatewayFilterFactory<RateLimitFilter.Config> {
+
+    private final TokenBucketTable buckets;
+    private final ClientAddressResolver clientAddressResolver;
+    private final boolean enabled;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, RouteCounters> counters = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RateLimitFilter(@Value("${gateway.rate-limit.enabled:true}") boolean enabled,
+                           @Value("${gateway.rate-limit.max-keys:100000}") int maxKeys,
+                           @Value("${gateway.rate-limit.stripes:64}") int stripes,
+                           @Value("${gateway.rate-limit.trusted-proxies:}") List<String> trustedProxies,
+                           MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.enabled = enabled;
+        this.buckets = new TokenBucketTable(maxKeys, stripes);
+        this.clientAddressResolver = new ClientAddressResolver(trustedProxies);
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("gateway.rate-limit.keys", buckets, TokenBucketTable::size)
+                .description("Clients with a rate limit bucket in memory")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        if (config.getCapacity() < 1 || config.getTokensPerSecond() <= 0) {
+            throw new IllegalArgumentException("Rate limit needs capacity >= 1 and tokensPerSecond > 0");
+        }
+        return (exchange, chain) -> {
+            if (!enabled) {
+                return chain.filter(exchange);
+            }
+            Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+            String routeId = route != null ? route.getId() : "unknown";
+            RouteCounters routeCounters = counters.computeIfAbsent(routeId, this::registerCounters);
+
+            // Route id is part of the key, so each route's limit is counted separately.
+            String key = routeId + '|' + clientKey(exchange, config.getKeyBy());
+            long waitNanos = buckets.tryAcquire(key, config.getCapacity(), config.getTokensPerSecond(), System.nanoTime());
+            if (waitNanos == 0) {
+                routeCounters.allowed().increment();
+                return chain.filter(exchange);
+            }
+            routeCounters.limited().increment();
+            return handleTooManyRequests(exchange, waitNanos);
+        };
+    }
+
+    @Scheduled(fixedDelayString = "${gateway.rate-limit.idle-sweep-interval:PT1M}")
+    public void evictIdle() {
+        buckets.evictIdle(System.nanoTime());
+    }
+
+    private String clientKey(ServerWebExchange exchange, KeyBy keyBy) {
+        if (keyBy == KeyBy.PRINCIPAL) {
+            JwtPrincipal principal = exchange.getAttribute(JwtAuthenticationFilter.PRINCIPAL_ATTRIBUTE);
+            if (principal != null) {
+                return "u:" + principal.subject();
+            }
+        }
+        InetAddress client = clientAddressResolver.resolve(
+                exchange.getRequest().getRemoteAddress(), exchange.getRequest().getHeaders());
+        return "ip:" + (client != null ? client.getHostAddress() : "unknown");
+    }
+
+    private RouteCounters registerCounters(String routeId) {
+        return new RouteCounters(
+                Counter.builder("gateway.rate-limit.requests").tag("route", routeId).tag("outcome", "allowed")
+                        .description("Requests checked by the rate limiter").register(meterRegistry),
+                Counter.builder("gateway.rate-limit.requests").tag("route", routeId).tag("outcome", "limited")
+                        .description("Requests checked by the rate limiter").register(meterRegistry));
+    }
+
+    private Mono<Void> handleTooManyRequests(ServerWebExchange exchange, long waitNanos) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+        response.getHeaders().add(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        return response.setComplete();
+    }
+
+    private record RouteCounters(Counter allowed, Counter limited) {}
+
+    public enum KeyBy {
+        /** The verified token's subject, falling back to the client IP when the route has no principal. */
+        PRINCIPAL,
+        /** Always the client IP. */
+        IP
+    }
+
+    @Getter
+    @Setter
+    public static class Config {
+        private int capacity;
+        private double tokensPerSecond;
+        private KeyBy keyBy = KeyBy.PRINCIPAL;
+    }
+}
@@ -0,0 +1,272 @@
+package com.springwarden.gateway.filter;
+
+import com.springwarden.common.util.JwtPrincipal;
+import com.springwarden.gateway.cache.ResponseCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.Setter;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Opt-in response cache for idempotent GET routes.
+ * Must come after JwtAuthenticationFilter and RoleBasedAccessFilter on the route, so a cached response
+ * is only served to a request that passed the same checks. The key is the route, path and query, plus
+ * the caller's role set or identity when the response can depend on them (see {@link VaryBy}).
+ * <p>
+ * With collapsing enabled, concurrent misses for one key wait for the first request's upstream call
+ * instead of making their own. Every response carries X-Cache-Status: HIT, MISS, COLLAPSED or BYPASS.
+ */
+@Component
+public class ResponseCacheFilter extends AbstractGatewayFilterFactory<ResponseCacheFilter.Config> {
+
+    public static final String STATUS_HEADER = "X-Cache-Status";
+
+    // Describe one connection or one transfer, not the resource; never replayed from the cache.
+    private static final List<String> UNCACHED_HEADERS = List.of(
+            HttpHeaders.SET_COOKIE, HttpHeaders.CONNECTION, HttpHeaders.TRANSFER_ENCODING, HttpHeaders.DATE,
+            STATUS_HEADER);
+
+    private final ResponseCache responseCache;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Sinks.One<Optional<ResponseCache.CachedResponse>>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Counter>> counters = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ResponseCacheFilter(ResponseCache responseCache, MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.responseCache = responseCache;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> {
+            String routeId = routeId(exchange);
+            if (!responseCache.isEnabled() || exchange.getRequest().getMethod() != HttpMethod.GET) {
+                count(routeId, "bypass");
+                exchange.getResponse().getHeaders().set(STATUS_HEADER, "BYPASS");
+                return chain.filter(exchange);
+            }
+
+            String key = key(routeId, exchange, config.getVaryBy());
+            Optional<ResponseCache.CachedResponse> cached = responseCache.get(key);
+            if (cached.isPresent()) {
+                count(routeId, "hit");
+                return write(exchange, cached.get(), "HIT");
+            }
+            if (!config.isCollapse()) {
+                count(routeId, "miss");
+                return forwardAndStore(exchange, chain, key, config.getTtl(), response -> {});
+            }
+
+            Sinks.One<Optional<ResponseCache.CachedResponse>> load = Sinks.one();
+            Sinks.One<Optional<ResponseCache.CachedResponse>> leader = inFlight.putIfAbsent(key, load);
+            if (leader != null) {
+                count(routeId, "collapsed");
+                // If the first request produced nothing cacheable (an error, a 404), go upstream ourselves.
+                return leader.asMono().flatMap(response -> response.isPresent()
+                        ? write(exchange, response.get(), "COLLAPSED")
+                        : chain.filter(exchange));
+            }
+
+            count(routeId, "miss");
+            AtomicReference<ResponseCache.CachedResponse> stored = new AtomicReference<>();
+            return forwardAndStore(exchange, chain, key, config.getTtl(), stored::set)
+                    // Also on error or cancellation, so waiting requests are never left hanging.
+                    .doFinally(signal -> {
+                        inFlight.remove(key, load);
+                        load.tryEmitValue(Optional.ofNullable(stored.get()));
+                    });
+        };
+    }
+
+    private Mono<Void> forwardAndStore(ServerWebExchange exchange, GatewayFilterChain chain, String key,
+                                       Duration ttl, Consumer<ResponseCache.CachedResponse> onStored) {
+        ServerHttpResponse capturing = new CapturingResponse(exchange.getResponse(), key, ttl, onStored);
+        return chain.filter(exchange.mutate().response(capturing).build());
+    }
+
+    private Mono<Void> write(ServerWebExchange exchange, ResponseCache.CachedResponse cached, String status) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(cached.status());
+        response.getHeaders().putAll(cached.headers());
+        response.getHeaders().set(STATUS_HEADER, status);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+    }
+
+    private static String key(String routeId, ServerWebExchange exchange, VaryBy varyBy) {
+        ServerHttpRequest request = exchange.getRequest();
+        String query = request.getURI().getRawQuery();
+        StringBuilder key = new StringBuilder(routeId).append('|').append(request.getURI().getRawPath());
+        if (query != null) {
+            key.append('?').append(query);
+        }
+        JwtPrincipal principal = exchange.getAttribute(JwtAuthenticationFilter.PRINCIPAL_ATTRIBUTE);
+        switch (varyBy) {
+            case ROLES -> key.append("|r:").append(principal != null ? principal.roleMask() : 0);
+            case PRINCIPAL -> key.append("|u:").append(principal != null ? principal.subject() : "");
+            case NONE -> { }
+        }
+        return key.toString();
+    }
+
+    private static String routeId(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        return route != null ? route.getId() : "unknown";
+    }
+
+    private void count(String routeId, String result) {
+        counters.computeIfAbsent(routeId, id -> new ConcurrentHashMap<>())
+                .computeIfAbsent(result, r -> Counter.builder("gateway.response-cache.requests")
+                        .tag("route", routeId)
+                        .tag("result", r)
+                        .description("Requests on cached routes by cache outcome")
+                        .register(meterRegistry))
+                .increment();
+    }
+
+    /**
+     * Buffers a successful upstream body, stores it and writes it on to the client unchanged.
+     */
+    private final class CapturingResponse extends ServerHttpResponseDecorator {
+
+        private final String key;
+        private final Duration ttl;
+        private final Consumer<ResponseCache.CachedResponse> onStored;
+
+        CapturingResponse(ServerHttpResponse delegate, String key, Duration ttl,
+                          Consumer<ResponseCache.CachedResponse> onStored) {
+            super(delegate);
+            this.key = key;
+            this.ttl = ttl;
+            this.onStored = onStored;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            getHeaders().set(STATUS_HEADER, "MISS");
+            HttpStatusCode status = getStatusCode();
+            if (status == null || status.value() != HttpStatus.OK.value() || !isCacheable(getHeaders())
+                    || getHeaders().getContentLength() > responseCache.getMaxBodyBytes()) {
+                return super.writeWith(body);
+            }
+            // Without a usable Content-Length the body is held until it is complete or passes the limit.
+            // Past the limit the held buffers and the rest are streamed through as they arrive, uncached.
+            HeldBody held = new HeldBody(responseCache.getMaxBodyBytes());
+            return getDelegate().writeWith(Flux.<DataBuffer>from(body)
+                    .concatMap(held::offer)
+                    .concatWith(Mono.defer(() -> held.complete(status)))
+                    .doFinally(signal -> held.release()));
+        }
+
+        private static boolean isCacheable(HttpHeaders headers) {
+            String cacheControl = headers.getCacheControl();
+            return !headers.containsKey(HttpHeaders.SET_COOKIE)
+                    && (cacheControl == null || !cacheControl.contains("no-store"));
+        }
+
+        private final class HeldBody {
+
+            private final int limit;
+            private final List<DataBuffer> buffers = new ArrayList<>();
+            private int size;
+            private boolean streaming;
+
+            HeldBody(int limit) {
+                this.limit = limit;
+            }
+
+            Flux<DataBuffer> offer(DataBuffer buffer) {
+                if (streaming) {
+                    return Flux.just(buffer);
+                }
+                buffers.add(buffer);
+                size += buffer.readableByteCount();
+                if (size <= limit) {
+                    return Flux.empty();
+                }
+                streaming = true;
+                List<DataBuffer> flushed = List.copyOf(buffers);
+                buffers.clear();
+                return Flux.fromIterable(flushed);
+            }
+
+            Mono<DataBuffer> complete(HttpStatusCode status) {
+                if (streaming) {
+                    return Mono.empty();
+                }
+                byte[] bytes = new byte[size];
+                int offset = 0;
+                for (DataBuffer buffer : buffers) {
+                    int length = buffer.readableByteCount();
+                    buffer.read(bytes, offset, length);
+                    offset += length;
+                }
+                release();
+
+                HttpHeaders headers = new HttpHeaders();
+                headers.putAll(getHeaders());
+                UNCACHED_HEADERS.forEach(headers::remove);
+                ResponseCache.CachedResponse response =
+                        new ResponseCache.CachedResponse(status, HttpHeaders.readOnlyHttpHeaders(headers), bytes, ttl);
+                if (responseCache.put(key, response)) {
+                    onStored.accept(response);
+                }
+                return Mono.just(bufferFactory().wrap(bytes));
+            }
+
+            // Buffers still held when the write is cancelled or fails are never handed on, so free them here.
+            void release() {
+                buffers.forEach(DataBufferUtils::release);
+                buffers.clear();
+            }
+        }
+    }
+
+    public enum VaryBy {
+        /** Same response for every caller that passed the route's checks. */
+        NONE,
+        /** Separate entries per role set, for responses that differ by role. */
+        ROLES,
+        /** Separate entries per principal, for responses about the caller themselves. */
+        PRINCIPAL
+    }
+
+    @Getter
+    @Setter
+    public static class Config {
+        private Duration ttl = Duration.ofSeconds(30);
+        private VaryBy varyBy = VaryBy.ROLES;
+        private boolean collapse = true;
+    }
+}
@@ -1,48 +1,67 @@
 package com.springwarden.gateway.filter;
 
+import com.springwarden.common.model.Role;
+import com.springwarden.common.util.JwtPrincipal;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
 
 @Component
 public class RoleBasedAccessFilter extends AbstractGatewayFilterFactory<RoleBasedAccessFilter.Config> {
 
-    public RoleBasedAccessFilter() {
+    private final Counter allowed;
+    private final Counter deniedNoPrincipal;
+    private final Counter deniedMissingRole;
+
+    public RoleBasedAccessFilter(MeterRegistry meterRegistry) {
         super(Config.class);
+        this.allowed = decisionCounter(meterRegistry, "allowed", "role_match");
+        this.deniedNoPrincipal = decisionCounter(meterRegistry, "denied", "no_principal");
+        this.deniedMissingRole = decisionCounter(meterRegistry, "denied", "missing_role");
+    }
+
+    private static Counter decisionCounter(MeterRegistry meterRegistry, String decision, String reason) {
+        return Counter.builder("gateway.authorization")
+                .description("Role checks made by RoleBasedAccessFilter")
+                .tag("decision", decision)
+                .tag("reason", reason)
+                .register(meterRegistry);
     }
 
     @Override
     public GatewayFilter apply(Config config) {
+        // Compiled once per route at startup; an unknown role name in the route config fails fast here.
+        final int requiredMask = config.getRoles().stream()
+                .mapToInt(role -> Role.valueOf(role).bit())
+                .reduce(0, (a, b) -> a | b);
+
         return (exchange, chain) -> {
-            ServerHttpRequest request = exchange.getRequest();
-            String rolesHeader = request.getHeaders().getFirst("X-User-Roles");
+            // Set by JwtAuthenticationFilter. Unlike the X-User-Roles header, a client cannot forge it.
+            JwtPrincipal principal = exchange.getAttribute(JwtAuthenticationFilter.PRINCIPAL_ATTRIBUTE);
 
-            // If the JWT filter didn't add the roles header, something is wrong. Forbid access.
-            if (rolesHeader == null || rolesHeader.isEmpty()) {
+            // If the JWT filter didn't run, something is wrong. Forbid access.
+            if (principal == null) {
+                deniedNoPrincipal.increment();
                 return handleForbidden(exchange, "User roles not found in request context.");
             }
 
-            List<String> userRoles = Arrays.asList(rolesHeader.split(","));
-            List<String> requiredRoles = config.getRoles();
-
             // Check if the user has at least one of the required roles
-            boolean hasRequiredRole = !Collections.disjoint(userRoles, requiredRoles);
-
-            if (!hasRequiredRole) {
+            if ((principal.roleMask() & requiredMask) == 0) {
+                deniedMissingRole.increment();
                 return handleForbidden(exchange, "User does not have the required role(s).");
             }
 
+            allowed.increment();
             return chain.filter(exchange);
         };
     }
@@ -59,4 +78,4 @@ public class RoleBasedAccessFilter extends AbstractGatewayFilterFactory<RoleBase
     public static class Config {
         private List<String> roles;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,158 @@
+package com.springwarden.gateway.ratelimit;
+
+import org.springframework.http.HttpHeaders;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds the client address of a request that may have passed through load balancers or ingresses.
+ * <p>
+ * Forwarding headers are only believed when the direct peer is a trusted proxy, since anyone else can
+ * send them with any content. The hops they list are then walked from the nearest to the furthest, and
+ * the first one that is not itself a trusted proxy is the client. With no trusted proxies configured the
+ * peer address is always used.
+ */
+public class ClientAddressResolver {
+
+    private static final String FORWARDED = "Forwarded";
+    private static final String X_FORWARDED_FOR = "X-Forwarded-For";
+
+    private final List<AddressRange> trustedProxies;
+
+    /**
+     * @param trustedProxies Addresses or CIDR ranges of the proxies in front of the gateway,
+     *                       e.g. 10.0.0.0/8 or 2001:db8::/32.
+     */
+    public ClientAddressResolver(List<String> trustedProxies) {
+        this.trustedProxies = trustedProxies.stream()
+                .map(String::trim)
+                .filter(range -> !range.isEmpty())
+                .map(AddressRange::parse)
+                .toList();
+    }
+
+    /**
+     * @return The client's address, or null if the peer address is unknown.
+     */
+    public InetAddress resolve(InetSocketAddress peer, HttpHeaders headers) {
+        InetAddress client = peer != null ? peer.getAddress() : null;
+        if (client == null || !isTrusted(client)) {
+            return client;
+        }
+        List<String> hops = forwardedFor(headers);
+        for (int i = hops.size() - 1; i >= 0; i--) {
+            InetAddress hop = parseLiteral(hops.get(i));
+            if (hop == null) {
+                // Obfuscated ("_hidden"), "unknown" or malformed: nothing further back can be trusted.
+                return client;
+            }
+            client = hop;
+            if (!isTrusted(hop)) {
+                return hop;
+            }
+        }
+        return client;
+    }
+
+    private boolean isTrusted(InetAddress address) {
+        for (AddressRange range : trustedProxies) {
+            if (range.contains(address)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // The RFC 7239 Forwarded header takes precedence; X-Forwarded-For is the de facto fallback.
+    private static List<String> forwardedFor(HttpHeaders headers) {
+        List<String> hops = new ArrayList<>();
+        List<String> forwarded = headers.get(FORWARDED);
+        if (forwarded != null) {
+            for (String value : forwarded) {
+                for (String element : value.split(",")) {
+                    for (String pair : element.split(";")) {
+                        int eq = pair.indexOf('=');
+                        if (eq > 0 && pair.substring(0, eq).trim().equalsIgnoreCase("for")) {
+                            hops.add(stripPort(pair.substring(eq + 1).trim().replace("\"", "")));
+                        }
+                    }
+                }
+            }
+            return hops;
+        }
+        List<String> xForwardedFor = headers.get(X_FORWARDED_FOR);
+        if (xForwardedFor != null) {
+            for (String value : xForwardedFor) {
+                for (String hop : value.split(",")) {
+                    hops.add(hop.trim());
+                }
+            }
+        }
+        return hops;
+    }
+
+    // "[2001:db8::1]:4711" -> "2001:db8::1", "192.0.2.43:1234" -> "192.0.2.43"; a bare IPv6 address is kept.
+    private static String stripPort(String node) {
+        if (node.startsWith("[")) {
+            int end = node.indexOf(']');
+            return end > 0 ? node.substring(1, end) : node;
+        }
+        int colon = node.indexOf(':');
+        return colon > 0 && colon == node.lastIndexOf(':') ? node.substring(0, colon) : node;
+    }
+
+    // Only IP literals are accepted, so a header value can never trigger a DNS lookup.
+    private static InetAddress parseLiteral(String value) {
+        boolean ipv6 = value.indexOf(':') >= 0;
+        if (value.isEmpty() || !value.chars().allMatch(c -> c == '.' || (ipv6 ? c == ':' || Character.digit(c, 16) >= 0
+                : Character.isDigit(c)))) {
+            return null;
+        }
+        try {
+            return InetAddress.getByName(value);
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+
+    private record AddressRange(byte[] network, int prefixLength) {
+
+        static AddressRange parse(String range) {
+            int slash = range.indexOf('/');
+            String address = slash < 0 ? range : range.substring(0, slash);
+            InetAddress parsed = parseLiteral(address);
+            if (parsed == null) {
+                throw new IllegalArgumentException("Trusted proxy must be an IP address or CIDR range: " + range);
+            }
+            byte[] network = parsed.getAddress();
+            int prefixLength = slash < 0 ? network.length * 8 : Integer.parseInt(range.substring(slash + 1));
+            if (prefixLength < 0 || prefixLength > network.length * 8) {
+                throw new IllegalArgumentException("Invalid prefix length in trusted proxy range: " + range);
+            }
+            return new AddressRange(network, prefixLength);
+        }
+
+        boolean contains(InetAddress address) {
+            byte[] bytes = address.getAddress();
+            if (bytes.length != network.length) {
+                return false;
+            }
+            int fullBytes = prefixLength / 8;
+            for (int i = 0; i < fullBytes; i++) {
+                if (bytes[i] != network[i]) {
+                    return false;
+                }
+            }
+            int remainingBits = prefixLength % 8;
+            if (remainingBits == 0) {
+                return true;
+            }
+            int mask = 0xFF << (8 - remainingBits);
+            return (bytes[fullBytes] & mask) == (network[fullBytes] & mask);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.springwarden.gateway.ratelimit;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Token buckets keyed by client, split into independently locked stripes so concurrent requests for
+ * different keys rarely contend. Each stripe is an access-ordered map with a fixed capacity, so memory
+ * stays bounded however many distinct keys arrive: the least recently seen key in a full stripe is
+ * dropped. A bucket that has been idle long enough to refill completely carries no state a new bucket
+ * wouldn't have, so {@link #evictIdle(long)} removes those too.
+ * <p>
+ * Buckets are refilled lazily from the elapsed time on each acquire; there is no timer per key.
+ */
+public class TokenBucketTable {
+
+    private final Stripe[] stripes;
+    private final int mask;
+
+    /**
+     * @param maxKeys Upper bound on buckets kept across all stripes.
+     * @param stripes Number of stripes, rounded up to a power of two.
+     */
+    public TokenBucketTable(int maxKeys, int stripes) {
+        int count = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.stripes = new Stripe[count];
+        this.mask = count - 1;
+        int perStripe = Math.max(1, maxKeys / count);
+        for (int i = 0; i < count; i++) {
+            this.stripes[i] = new Stripe(perStripe);
+        }
+    }
+
+    /**
+     * Takes one token from the key's bucket, creating a full bucket for an unseen key.
+     * @param capacity        Bucket size, i.e. the burst allowed after a quiet period.
+     * @param tokensPerSecond Sustained rate.
+     * @return 0 if a token was taken, otherwise the nanoseconds until one will be available.
+     */
+    public long tryAcquire(String key, int capacity, double tokensPerSecond, long nowNanos) {
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            Bucket bucket = stripe.get(key);
+            if (bucket == null) {
+                bucket = new Bucket(capacity, nowNanos, (long) (capacity / tokensPerSecond * 1e9));
+                stripe.put(key, bucket);
+            } else {
+                double elapsedSeconds = (nowNanos - bucket.updatedAt) / 1e9;
+                bucket.tokens = Math.min(capacity, bucket.tokens + elapsedSeconds * tokensPerSecond);
+                bucket.updatedAt = nowNanos;
+            }
+            if (bucket.tokens >= 1) {
+                bucket.tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - bucket.tokens) / tokensPerSecond * 1e9);
+        }
+    }
+
+    /**
+     * Drops buckets that have refilled completely since they were last used.
+     * @return The number of buckets removed.
+     */
+    public int evictIdle(long nowNanos) {
+        int evicted = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                // Access order: the least recently used buckets come first, so stop at the first busy one.
+                Iterator<Bucket> buckets = stripe.values().iterator();
+                while (buckets.hasNext()) {
+                    Bucket bucket = buckets.next();
+                    if (nowNanos - bucket.updatedAt < bucket.refillNanos) {
+                        break;
+                    }
+                    buckets.remove();
+                    evicted++;
+                }
+            }
+        }
+        return evicted;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    private Stripe stripeFor(String key) {
+        int h = key.hashCode();
+        return stripes[(h ^ (h >>> 16)) & mask];
+    }
+
+    private static final class Bucket {
+        private double tokens;
+        private long updatedAt;
+        // Time for an empty bucket to refill; after this long unused it is indistinguishable from a new one.
+        private final long refillNanos;
+
+        Bucket(double tokens, long updatedAt, long refillNanos) {
+            this.tokens = tokens;
+            this.updatedAt = updatedAt;
+            this.refillNanos = refillNanos;
+        }
+    }
+
+    private static final class Stripe extends LinkedHashMap<String, Bucket> {
+        private final int maxEntries;
+
+        Stripe(int maxEntries) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+            return size() > maxEntries;
+        }
+    }
+}
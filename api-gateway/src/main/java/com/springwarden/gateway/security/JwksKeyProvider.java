@@ -0,0 +1,118 @@
+package com.springwarden.gateway.security;
+
+import com.springwarden.common.util.JwtKeyProvider;
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.JwkSet;
+import io.jsonwebtoken.security.Jwks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.security.PublicKey;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Verification-only key provider backed by auth-service's JWKS endpoint.
+ * Keys are held in memory and refreshed in the background; a token with an unknown kid
+ * (i.e. signed by a freshly rotated key) triggers an early, rate-limited refresh.
+ * Lookups never block the event loop: until the refresh lands, the unknown kid simply fails verification.
+ * <p>
+ * Each refresh reaches one load-balanced auth-service instance, which may not have synced a new key yet,
+ * so a refresh only adds keys. A key is dropped once no refresh has listed it for jwks-key-retention.
+ */
+@Component
+@ConditionalOnExpression("'${jwt.algorithm:HS256}' != 'HS256'")
+public class JwksKeyProvider implements JwtKeyProvider {
+
+    private static final Logger log = LoggerFactory.getLogger(JwksKeyProvider.class);
+
+    private final WebClient webClient;
+    private final String jwksUri;
+    private final long minRefreshIntervalMillis;
+    private final long keyRetentionMillis;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private volatile Map<String, KnownKey> keys = Map.of();
+    private volatile long lastRefreshStarted;
+
+    public JwksKeyProvider(WebClient.Builder loadBalancedWebClientBuilder,
+                           @Value("${jwt.jwks-uri:http://auth-service/auth/.well-known/jwks.json}") String jwksUri,
+                           @Value("${jwt.jwks-min-refresh-interval:PT10S}") Duration minRefreshInterval,
+                           @Value("${jwt.jwks-key-retention:PT1H}") Duration keyRetention) {
+        this.webClient = loadBalancedWebClientBuilder.build();
+        this.jwksUri = jwksUri;
+        this.minRefreshIntervalMillis = minRefreshInterval.toMillis();
+        this.keyRetentionMillis = keyRetention.toMillis();
+    }
+
+    @Override
+    public SigningKey currentSigningKey() {
+        // The gateway never issues tokens.
+        return null;
+    }
+
+    @Override
+    public PublicKey verificationKey(String keyId) {
+        KnownKey key = keys.get(keyId);
+        if (key == null && System.currentTimeMillis() - lastRefreshStarted >= minRefreshIntervalMillis) {
+            refresh();
+        }
+        return key != null ? key.publicKey() : null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${jwt.jwks-refresh-interval:PT5M}")
+    public void refresh() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        lastRefreshStarted = System.currentTimeMillis();
+        webClient.get()
+                .uri(jwksUri)
+                .retrieve()
+                .bodyToMono(String.class)
+                .map(this::parse)
+                .doFinally(signal -> refreshing.set(false))
+                .subscribe(
+                        loaded -> {
+                            keys = merge(loaded);
+                            log.debug("Loaded {} JWT verification key(s) from {}", loaded.size(), jwksUri);
+                        },
+                        e -> log.warn("Failed to refresh JWKS from {}: {}", jwksUri, e.getMessage())
+                );
+    }
+
+    private Map<String, PublicKey> parse(String json) {
+        JwkSet jwkSet = Jwks.setParser().build().parse(json);
+        Map<String, PublicKey> loaded = new HashMap<>();
+        for (Jwk<?> jwk : jwkSet.getKeys()) {
+            if (jwk.getId() != null && jwk.toKey() instanceof PublicKey publicKey) {
+                loaded.put(jwk.getId(), publicKey);
+            }
+        }
+        return Map.copyOf(loaded);
+    }
+
+    // Only the refresh pipeline writes keys, and at most one refresh runs at a time.
+    private Map<String, KnownKey> merge(Map<String, PublicKey> loaded) {
+        long now = System.currentTimeMillis();
+        Map<String, KnownKey> merged = new HashMap<>();
+        keys.forEach((keyId, key) -> {
+            if (now - key.lastListed() < keyRetentionMillis) {
+                merged.put(keyId, key);
+            }
+        });
+        loaded.forEach((keyId, publicKey) -> merged.put(keyId, new KnownKey(publicKey, now)));
+        return Map.copyOf(merged);
+    }
+
+    private record KnownKey(PublicKey publicKey, long lastListed) {}
+}
@@ -0,0 +1,61 @@
+package com.springwarden.gateway.security;
+
+import com.springwarden.common.event.TokenRevokedEvent;
+import com.springwarden.common.util.RevocationList;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * The gateway's copy of revoked token ids, fed by auth-service's token-revocations broadcast.
+ * Every gateway instance reads the whole topic from the beginning in its own consumer group
+ * (see KafkaConsumerConfig), so the topic's retention must be at least the refresh-token lifetime.
+ * The group outlives restarts, so the seek to the beginning is done on every assignment rather than
+ * left to auto.offset.reset: the in-memory list starts empty and needs every revocation again.
+ */
+@Component
+public class RevokedTokenRegistry implements ConsumerSeekAware {
+
+    private final RevocationList revocations;
+
+    @Autowired
+    public RevokedTokenRegistry(@Value("${gateway.revocation.expected-revocations:100000}") int expectedRevocations,
+                                @Value("${gateway.revocation.false-positive-rate:0.01}") double falsePositiveRate,
+                                MeterRegistry meterRegistry) {
+        this.revocations = new RevocationList(expectedRevocations, falsePositiveRate);
+        Gauge.builder("gateway.revoked-tokens", revocations, RevocationList::size)
+                .description("Revoked tokens that have not expired yet")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Hot-path check: a few bit probes for the common not-revoked case, a map lookup otherwise.
+     */
+    public boolean isRevoked(String tokenId) {
+        return revocations.isRevoked(tokenId);
+    }
+
+    @KafkaListener(topics = "token-revocations", containerFactory = "tokenRevocationListenerFactory")
+    public void onTokenRevoked(TokenRevokedEvent event) {
+        revocations.add(event.tokenId(), Instant.ofEpochMilli(event.expiresAt()));
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        callback.seekToBeginning(assignments.keySet());
+    }
+
+    @Scheduled(fixedDelayString = "${gateway.revocation.purge-interval:PT10M}")
+    public void purgeExpired() {
+        revocations.purgeExpired();
+    }
+}
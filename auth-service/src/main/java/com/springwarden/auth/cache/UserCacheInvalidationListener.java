@@ -0,0 +1,33 @@
+package com.springwarden.auth.cache;
+
+import com.springwarden.common.event.UserEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Evicts cached identities when a user changes. Every auth-service instance joins its own
+ * consumer group (see KafkaConfig) so each one sees every event, not just a share of the partitions.
+ */
+@Component
+public class UserCacheInvalidationListener {
+
+    private static final Logger log = LoggerFactory.getLogger(UserCacheInvalidationListener.class);
+    private final UserIdentityCache userIdentityCache;
+
+    @Autowired
+    public UserCacheInvalidationListener(UserIdentityCache userIdentityCache) {
+        this.userIdentityCache = userIdentityCache;
+    }
+
+    @KafkaListener(topics = "user-events", containerFactory = "userCacheInvalidationListenerFactory")
+    public void onUserEvent(UserEvent event) {
+        if (event.user() == null || event.user().email() == null) {
+            return;
+        }
+        log.debug("Evicting cached identity for {} after {} event", event.user().email(), event.eventType());
+        userIdentityCache.evict(event.user().email());
+    }
+}
@@ -0,0 +1,31 @@
+package com.springwarden.auth.cache;
+
+import com.springwarden.auth.entity.User;
+import com.springwarden.common.dto.UserDto;
+import com.springwarden.common.model.Role;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The subset of a User needed to refresh tokens and answer /auth/user, without the password hash.
+ * Roles are held as a {@link Role} bitmask so entries stay small in both cache tiers.
+ */
+public record UserIdentity(Long id, String email, String firstName, String lastName, int roleMask, boolean enabled) {
+
+    public static UserIdentity from(User user) {
+        int mask = 0;
+        for (Role role : user.getRoles()) {
+            mask |= role.bit();
+        }
+        return new UserIdentity(user.getId(), user.getEmail(), user.getFirstName(), user.getLastName(), mask, user.isEnabled());
+    }
+
+    public Set<String> roleNames() {
+        return Role.fromMask(roleMask).stream().map(Role::name).collect(Collectors.toSet());
+    }
+
+    public UserDto toDto() {
+        return new UserDto(id, email, firstName, lastName, roleNames(), enabled);
+    }
+}
@@ -0,0 +1,109 @@
+package com.springwarden.auth.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.springwarden.auth.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Read-through cache of user identities keyed by email.
+ * Tier 1 is a size/TTL bounded in-process Caffeine cache. Tier 2 is an optional Redis cache
+ * shared by all auth-service instances (auth.user-cache.shared.enabled). Both tiers are evicted
+ * whenever a user-events message for that user is seen, see UserCacheInvalidationListener.
+ */
+@Component
+public class UserIdentityCache {
+
+    private static final Logger log = LoggerFactory.getLogger(UserIdentityCache.class);
+    private static final String SHARED_KEY_PREFIX = "auth:user:";
+
+    private final UserRepository userRepository;
+    private final Cache<String, UserIdentity> local;
+    private final StringRedisTemplate shared;
+    private final ObjectMapper objectMapper;
+    private final Duration sharedTtl;
+
+    public UserIdentityCache(UserRepository userRepository,
+                             ObjectProvider<StringRedisTemplate> redisTemplate,
+                             ObjectMapper objectMapper,
+                             @Value("${auth.user-cache.max-size:100000}") long maxSize,
+                             @Value("${auth.user-cache.ttl:PT10M}") Duration ttl,
+                             @Value("${auth.user-cache.shared.enabled:false}") boolean sharedEnabled,
+                             @Value("${auth.user-cache.shared.ttl:PT30M}") Duration sharedTtl) {
+        this.userRepository = userRepository;
+        this.objectMapper = objectMapper;
+        this.sharedTtl = sharedTtl;
+        this.local = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+        this.shared = sharedEnabled ? redisTemplate.getIfAvailable() : null;
+    }
+
+    /**
+     * @return The identity for the email, loading it from the shared tier or the database on a miss.
+     *         Unknown emails are not cached.
+     */
+    public Optional<UserIdentity> findByEmail(String email) {
+        UserIdentity identity = local.getIfPresent(email);
+        if (identity != null) {
+            return Optional.of(identity);
+        }
+        identity = readShared(email);
+        if (identity == null) {
+            identity = userRepository.findByEmail(email).map(UserIdentity::from).orElse(null);
+            if (identity == null) {
+                return Optional.empty();
+            }
+            writeShared(identity);
+        }
+        local.put(email, identity);
+        return Optional.of(identity);
+    }
+
+    public void evict(String email) {
+        local.invalidate(email);
+        if (shared != null) {
+            try {
+                shared.delete(SHARED_KEY_PREFIX + email);
+            } catch (RuntimeException e) {
+                log.warn("Failed to evict shared user cache entry for {}: {}", email, e.getMessage());
+            }
+        }
+    }
+
+    // The shared tier is best-effort: if Redis is unavailable we fall through to the database.
+    private UserIdentity readShared(String email) {
+        if (shared == null) {
+            return null;
+        }
+        try {
+            String json = shared.opsForValue().get(SHARED_KEY_PREFIX + email);
+            return json != null ? objectMapper.readValue(json, UserIdentity.class) : null;
+        } catch (RuntimeException | JsonProcessingException e) {
+            log.warn("Shared user cache read failed for {}: {}", email, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeShared(UserIdentity identity) {
+        if (shared == null) {
+            return;
+        }
+        try {
+            shared.opsForValue().set(SHARED_KEY_PREFIX + identity.email(), objectMapper.writeValueAsString(identity), sharedTtl);
+        } catch (RuntimeException | JsonProcessingException e) {
+            log.warn("Shared user cache write failed for {}: {}", identity.email(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.springwarden.auth.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BCrypt encoder with a configured work factor, plus a calibration that measures which cost fits a latency
+ * budget on this machine. Unlike the stock encoder, {@link #upgradeEncoding(String)} reports hashes with
+ * a lower cost than the current one, so DaoAuthenticationProvider rehashes the password on the next
+ * successful login and the cost can be raised without forcing password resets. Hashes are never
+ * downgraded: nodes briefly running different costs (e.g. during a rollout) would otherwise rehash the
+ * same passwords back and forth.
+ * <p>
+ * As a MeterBinder bean it is bound to the registry at startup and times every hash and check
+ * (auth.password.hash, op=encode|matches), which is most of the cost of login and register.
+ */
+public class AdaptiveBCryptPasswordEncoder extends BCryptPasswordEncoder implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(AdaptiveBCryptPasswordEncoder.class);
+    private static final int MAX_STRENGTH = 31;
+
+    private final int strength;
+    private volatile Timer encodeTimer;
+    private volatile Timer matchesTimer;
+
+    public AdaptiveBCryptPasswordEncoder(int strength) {
+        super(strength);
+        this.strength = strength;
+    }
+
+    /**
+     * Picks the highest cost, starting at minStrength, whose hash time on this machine stays within the budget.
+     * Meant as a one-off measurement whose result is then configured on every node; a per-node default
+     * would give nodes on different hardware different costs.
+     */
+    public static AdaptiveBCryptPasswordEncoder calibrated(Duration targetHashTime, int minStrength) {
+        int strength = minStrength;
+        while (strength < MAX_STRENGTH) {
+            long start = System.nanoTime();
+            new BCryptPasswordEncoder(strength + 1).encode("calibration-password");
+            long elapsed = System.nanoTime() - start;
+            if (elapsed > targetHashTime.toNanos()) {
+                break;
+            }
+            strength++;
+        }
+        log.warn("Calibrated BCrypt work factor to {} for a {} ms hash budget on this machine; "
+                + "set auth.password.bcrypt-strength={} on every node to pin it", strength, targetHashTime.toMillis(), strength);
+        return new AdaptiveBCryptPasswordEncoder(strength);
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.encodeTimer = hashTimer(registry, "encode");
+        this.matchesTimer = hashTimer(registry, "matches");
+    }
+
+    private Timer hashTimer(MeterRegistry registry, String op) {
+        return Timer.builder("auth.password.hash")
+                .description("BCrypt hashing time")
+                .tag("op", op)
+                .tag("strength", String.valueOf(strength))
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        long start = System.nanoTime();
+        try {
+            return super.encode(rawPassword);
+        } finally {
+            record(encodeTimer, start);
+        }
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        long start = System.nanoTime();
+        try {
+            return super.matches(rawPassword, encodedPassword);
+        } finally {
+            record(matchesTimer, start);
+        }
+    }
+
+    private static void record(Timer timer, long start) {
+        if (timer != null) {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        // BCrypt hashes look like $2a$10$<salt+hash>; the two digits after the version are the cost.
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(0) != '$') {
+            return false;
+        }
+        try {
+            return Integer.parseInt(encodedPassword.substring(4, 6)) < strength;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
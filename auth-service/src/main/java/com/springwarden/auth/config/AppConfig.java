@@ -3,8 +3,13 @@ package com.springwarden.auth.config;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
+@EnableScheduling
 public class AppConfig {
 
     @Value("${jwt.access-expiration}")
@@ -14,4 +19,41 @@ public class AppConfig {
     public long accessExpiration() {
         return accessExpirationValue;
     }
-}
\ No newline at end of file
+
+    /**
+     * Dedicated pool for login, where BCrypt verification dominates. Keeping it off the Tomcat threads
+     * means a login spike cannot starve /auth/refresh and /auth/validate. The queue is bounded and
+     * overflow is rejected (TaskRejectedException), which AuthController turns into a fast 503.
+     */
+    @Bean(name = "loginExecutor")
+    public ThreadPoolTaskExecutor loginExecutor(
+            @Value("${auth.login-executor.threads:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}") int threads,
+            @Value("${auth.login-executor.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("login-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Pool for bulk token introspection, one thread per core since verification is CPU-bound.
+     * When the queue is full the submitting request verifies its chunk itself, which slows that
+     * caller down instead of failing it.
+     */
+    @Bean(name = "introspectionExecutor")
+    public ThreadPoolTaskExecutor introspectionExecutor(
+            @Value("${auth.introspection.threads:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}") int threads,
+            @Value("${auth.introspection.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("introspect-");
+        executor.initialize();
+        return executor;
+    }
+}
@@ -1,13 +1,29 @@
 package com.springwarden.auth.config;
 
+import com.springwarden.common.event.UserEventDeserializer;
+import com.springwarden.common.event.UserEventSerializer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerProducerListener;
 import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.ProducerListener;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
 import org.springframework.kafka.support.serializer.JsonSerializer;
 
 import java.util.HashMap;
@@ -16,20 +32,120 @@ import java.util.Map;
 @Configuration
 public class KafkaConfig {
 
+    private static final Logger log = LoggerFactory.getLogger(KafkaConfig.class);
+
     @Value("${spring.kafka.bootstrap-servers:localhost:9092}")
     private String bootstrapServers;
 
+    @Value("${spring.application.name:auth-service}")
+    private String applicationName;
+
+    // Spring Cloud's default Eureka instance id (host:port) unless one is configured.
+    @Value("${eureka.instance.instance-id:${spring.cloud.client.hostname}:${server.port:8080}}")
+    private String instanceId;
+
+    @Value("${spring.kafka.producer.acks:all}")
+    private String acks;
+
+    @Value("${spring.kafka.producer.compression-type:lz4}")
+    private String compressionType;
+
+    @Value("${spring.kafka.producer.batch-size:65536}")
+    private int batchSize;
+
+    @Value("${spring.kafka.producer.properties.linger.ms:10}")
+    private int lingerMs;
+
+    // Wire format for user-events: "json" (Spring's JsonSerializer) or "binary" (UserEventCodec).
+    @Value("${user-events.codec:json}")
+    private String userEventsCodec;
+
+    // spring.threads.virtual.enabled switches Tomcat and Boot's executors; see useVirtualThreads for listeners.
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
     @Bean
-    public ProducerFactory<String, Object> producerFactory() {
+    public ProducerFactory<String, Object> producerFactory(MeterRegistry meterRegistry) {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
-        return new DefaultKafkaProducerFactory<>(configProps);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG,
+                "binary".equals(userEventsCodec) ? UserEventSerializer.class : JsonSerializer.class);
+
+        // Idempotence (which requires acks=all) makes broker-side retries duplicate-free and,
+        // with at most 5 in-flight requests, keeps per-partition ordering intact.
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        configProps.put(ProducerConfig.ACKS_CONFIG, acks);
+        configProps.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
+
+        // A short linger lets bulk registrations share one compressed batch per partition
+        // instead of paying a broker round trip per event.
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+
+        DefaultKafkaProducerFactory<String, Object> factory = new DefaultKafkaProducerFactory<>(configProps);
+        // Exposes the client's own metrics (kafka.producer.batch.size.avg, record.send.rate, ...).
+        factory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return factory;
+    }
+
+    @Bean
+    public KafkaTemplate<String, Object> kafkaTemplate(ProducerFactory<String, Object> producerFactory,
+                                                       MeterRegistry meterRegistry) {
+        KafkaTemplate<String, Object> template = new KafkaTemplate<>(producerFactory);
+        // A span per send, and the current trace context written to the record headers for the consumer.
+        template.setObservationEnabled(true);
+        template.setProducerListener(new ProducerListener<>() {
+            @Override
+            public void onSuccess(ProducerRecord<String, Object> record, RecordMetadata metadata) {
+                meterRegistry.counter("kafka.events.sent", "topic", record.topic(), "result", "success").increment();
+            }
+
+            @Override
+            public void onError(ProducerRecord<String, Object> record, RecordMetadata metadata, Exception exception) {
+                meterRegistry.counter("kafka.events.sent", "topic", record.topic(), "result", "failure").increment();
+                log.error("Failed to publish event to '{}' with key '{}': {}", record.topic(), record.key(), exception.getMessage());
+            }
+        });
+        return template;
     }
 
+    /**
+     * Consumer for per-instance state: user-cache invalidation and token revocations. The group id is
+     * unique per instance, so every auth-service node receives every event and updates its own copy.
+     * It is derived from the instance id rather than generated, so a restarted instance rejoins its own
+     * group instead of leaving an orphaned one on the broker, and its lag stays comparable over time.
+     */
     @Bean
-    public KafkaTemplate<String, Object> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+    public ConsumerFactory<String, Object> userCacheInvalidationConsumerFactory() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, applicationName + "-cache-" + instanceId);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG,
+                "binary".equals(userEventsCodec) ? UserEventDeserializer.class : JsonDeserializer.class);
+        props.put(JsonDeserializer.TRUSTED_PACKAGES, "com.springwarden.common.event,com.springwarden.common.dto");
+        return new DefaultKafkaConsumerFactory<>(props);
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> userCacheInvalidationListenerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(userCacheInvalidationConsumerFactory());
+        useVirtualThreads(factory, "auth-cache-listener-");
+        return factory;
+    }
+
+    // In virtual-thread mode listeners run on virtual threads too, like request handling.
+    // Boot only applies spring.threads.virtual.enabled to the container factory it creates itself.
+    private void useVirtualThreads(ConcurrentKafkaListenerContainerFactory<String, Object> factory, String prefix) {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(prefix);
+            executor.setVirtualThreads(true);
+            factory.getContainerProperties().setListenerTaskExecutor(executor);
+        }
     }
-}
\ No newline at end of file
+}
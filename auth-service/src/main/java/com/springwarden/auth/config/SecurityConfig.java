@@ -1,7 +1,10 @@
 package com.springwarden.auth.config;
 
+import com.springwarden.auth.security.IdentityAssertionFilter;
 import com.springwarden.auth.service.CustomUserDetailsService;
+import com.springwarden.common.util.IdentityAssertion;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -13,9 +16,10 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.annotation.web.configurers.HeadersConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+
+import java.time.Duration;
 
 @Configuration
 @EnableWebSecurity
@@ -24,9 +28,27 @@ public class SecurityConfig {
     @Autowired
     private CustomUserDetailsService userDetailsService;
 
+    @Autowired
+    private IdentityAssertion identityAssertion;
+
+    // A fixed BCrypt cost (4-31), the same on every node. "auto" calibrates against target-hash-time at
+    // startup and logs the result, to find the value to configure; don't leave it on in a cluster.
+    @Value("${auth.password.bcrypt-strength:12}")
+    private String bcryptStrength;
+
+    @Value("${auth.password.target-hash-time:PT0.25S}")
+    private Duration targetHashTime;
+
+    @Value("${auth.password.min-strength:10}")
+    private int minStrength;
+
+    // Declared with the concrete type so Boot finds it as a MeterBinder before it is created.
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public AdaptiveBCryptPasswordEncoder passwordEncoder() {
+        if ("auto".equalsIgnoreCase(bcryptStrength)) {
+            return AdaptiveBCryptPasswordEncoder.calibrated(targetHashTime, minStrength);
+        }
+        return new AdaptiveBCryptPasswordEncoder(Integer.parseInt(bcryptStrength));
     }
 
     @Bean
@@ -34,6 +56,8 @@ public class SecurityConfig {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
         authProvider.setPasswordEncoder(passwordEncoder());
+        // Rehashes the stored password on login when its cost no longer matches the encoder's.
+        authProvider.setUserDetailsPasswordService(userDetailsService);
         return authProvider;
     }
 
@@ -48,13 +72,16 @@ public class SecurityConfig {
                 .csrf(AbstractHttpConfigurer::disable)
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(authz -> authz
-                        .requestMatchers(HttpMethod.POST, "/auth/login", "/auth/register", "/auth/refresh").permitAll()
+                        .requestMatchers(HttpMethod.POST, "/auth/login", "/auth/register", "/auth/refresh", "/auth/revoke").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/auth/.well-known/jwks.json").permitAll()
                         .requestMatchers("/h2-console/**").permitAll()
                         .anyRequest().authenticated()
                 )
                 .headers(headers -> headers.frameOptions(HeadersConfigurer.FrameOptionsConfig::disable)); // For H2 console
 
         http.authenticationProvider(authenticationProvider());
+        // Requests forwarded by the gateway are authenticated from its identity assertion.
+        http.addFilterBefore(new IdentityAssertionFilter(identityAssertion), UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
     }
@@ -1,13 +1,30 @@
 package com.springwarden.auth.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.springwarden.auth.exception.InvalidTokenException;
+import com.springwarden.auth.exception.ServiceUnavailableException;
 import com.springwarden.auth.service.AuthService;
+import com.springwarden.auth.service.TokenIntrospectionService;
 import com.springwarden.common.dto.*;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.authentication.preauth.PreAuthenticatedAuthenticationToken;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/auth")
@@ -16,9 +33,25 @@ public class AuthController {
     @Autowired
     private AuthService authService;
 
+    @Autowired
+    private TokenIntrospectionService tokenIntrospectionService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    @Qualifier("loginExecutor")
+    private Executor loginExecutor;
+
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> login(@Valid @RequestBody AuthRequest request) {
-        return ResponseEntity.ok(authService.login(request));
+    public CompletableFuture<ResponseEntity<AuthResponse>> login(@Valid @RequestBody AuthRequest request) {
+        // Password hashing runs on the bounded login pool; the servlet thread is released immediately.
+        try {
+            return CompletableFuture.supplyAsync(() -> authService.login(request), loginExecutor)
+                    .thenApply(ResponseEntity::ok);
+        } catch (RejectedExecutionException e) {
+            throw new ServiceUnavailableException("Too many concurrent login attempts. Please retry shortly.");
+        }
     }
 
     @PostMapping("/register")
@@ -38,8 +71,49 @@ public class AuthController {
         return ResponseEntity.ok(isValid);
     }
 
+    /**
+     * Revokes the token in the body (access or refresh), e.g. on logout. Always 204, so the
+     * endpoint doesn't reveal whether a token was valid.
+     */
+    @PostMapping("/revoke")
+    public ResponseEntity<Void> revokeToken(@RequestBody TokenValidationRequest request) {
+        authService.revokeToken(request.token());
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Bulk form of /validate: one request with many tokens, answered as newline-delimited JSON with
+     * one TokenIntrospection per token, in request order, streamed as results become available.
+     */
+    @PostMapping(value = "/introspect", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> introspect(@Valid @RequestBody TokenIntrospectionRequest request) {
+        StreamingResponseBody body = out -> {
+            // Jackson would otherwise close the response stream after the first value.
+            ObjectWriter writer = objectMapper.writerFor(TokenIntrospection.class)
+                    .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            tokenIntrospectionService.introspect(request.tokens(), result -> {
+                try {
+                    writer.writeValue(out, result);
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(body);
+    }
+
     @GetMapping("/user")
-    public ResponseEntity<UserDto> getUserFromToken(@RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader) {
+    public ResponseEntity<UserDto> getUserFromToken(Authentication authentication,
+                                                    @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authHeader) {
+        // Forwarded by the gateway: the identity assertion was already checked, no need to parse the JWT again.
+        if (authentication instanceof PreAuthenticatedAuthenticationToken) {
+            return ResponseEntity.ok(authService.getUserByEmail(authentication.getName()));
+        }
+        if (authHeader == null) {
+            throw new InvalidTokenException("Access token is missing.");
+        }
         String token = authHeader.replace("Bearer ", "");
         UserDto user = authService.getUserFromToken(token);
         return ResponseEntity.ok(user);
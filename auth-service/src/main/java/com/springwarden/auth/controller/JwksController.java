@@ -0,0 +1,29 @@
+package com.springwarden.auth.controller;
+
+import com.springwarden.auth.service.JwtSigningKeyService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/auth")
+@ConditionalOnExpression("'${jwt.algorithm:HS256}' != 'HS256'")
+public class JwksController {
+
+    @Autowired
+    private JwtSigningKeyService signingKeyService;
+
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, Object>> getJwks() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(Duration.ofMinutes(5)).cachePublic())
+                .body(signingKeyService.jwkSet());
+    }
+}
@@ -0,0 +1,57 @@
+package com.springwarden.auth.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * A token signing key pair, shared by every auth-service instance through the database.
+ * A key is published in the JWKS as soon as it is stored and signs tokens from activatesAt on,
+ * so gateways have fetched it before the first token signed with it reaches them.
+ */
+@Entity
+@Table(name = "jwt_signing_keys")
+@Getter
+@Setter
+@NoArgsConstructor
+public class JwtSigningKey {
+
+    // RFC 7638 thumbprint of the public key.
+    @Id
+    private String keyId;
+
+    @Column(nullable = false)
+    private String algorithm;
+
+    // Base64 X.509 DER.
+    @Lob
+    @Column(nullable = false)
+    private String publicKey;
+
+    // Base64 PKCS#8 DER. Anyone who can read this table can sign tokens; grant access accordingly.
+    @Lob
+    @Column(nullable = false)
+    private String privateKey;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    @Column(nullable = false)
+    private Instant activatesAt;
+
+    public JwtSigningKey(String keyId, String algorithm, String publicKey, String privateKey, Instant activatesAt) {
+        this.keyId = keyId;
+        this.algorithm = algorithm;
+        this.publicKey = publicKey;
+        this.privateKey = privateKey;
+        this.activatesAt = activatesAt;
+    }
+
+    @PrePersist
+    public void prePersist() {
+        this.createdAt = Instant.now();
+    }
+}
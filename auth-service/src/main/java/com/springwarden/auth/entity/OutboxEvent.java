@@ -0,0 +1,59 @@
+package com.springwarden.auth.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * An event waiting to be published to Kafka.
+ * Rows are written in the same transaction as the state change they describe and deleted
+ * by OutboxRelay once the broker has acknowledged them, so an event is published if and only
+ * if its transaction committed. The identity column gives the relay a global publish order.
+ */
+@Entity
+@Table(name = "outbox_events")
+@Getter
+@Setter
+@NoArgsConstructor
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String topic;
+
+    // Kafka record key (the user id), which keeps per-user ordering on the partition.
+    @Column(name = "message_key", nullable = false)
+    private String messageKey;
+
+    // Fully qualified class of the payload, used to rebuild it for the JSON serializer.
+    @Column(nullable = false)
+    private String payloadType;
+
+    @Lob
+    @Column(nullable = false)
+    private String payload;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    // W3C traceparent of the request that wrote the event; the relay continues that trace when publishing.
+    private String traceParent;
+
+    public OutboxEvent(String topic, String messageKey, String payloadType, String payload) {
+        this.topic = topic;
+        this.messageKey = messageKey;
+        this.payloadType = payloadType;
+        this.payload = payload;
+    }
+
+    @PrePersist
+    public void prePersist() {
+        this.createdAt = Instant.now();
+    }
+}
@@ -0,0 +1,35 @@
+package com.springwarden.auth.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Time-limited claim on the outbox. Only the instance holding it relays, so events leave in id order
+ * without any outbox rows being locked while the relay waits for the broker.
+ */
+@Entity
+@Table(name = "outbox_relay_lease")
+@Getter
+@Setter
+@NoArgsConstructor
+public class OutboxRelayLease {
+
+    @Id
+    private String name;
+
+    @Column(nullable = false)
+    private String owner;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+
+    public OutboxRelayLease(String name, String owner, Instant expiresAt) {
+        this.name = name;
+        this.owner = owner;
+        this.expiresAt = expiresAt;
+    }
+}
@@ -1,6 +1,7 @@
 package com.springwarden.auth.entity;
 
 import com.springwarden.common.model.Role;
+import com.springwarden.common.model.RoleSetConverter;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -35,10 +36,9 @@ public class User implements UserDetails {
     private String firstName;
     private String lastName;
 
-    @Enumerated(EnumType.STRING)
-    @ElementCollection(fetch = FetchType.EAGER)
-    @CollectionTable(name = "user_roles", joinColumns = @JoinColumn(name = "user_id"))
-    @Column(name = "role")
+    // Stored as a bitmask column on this row; the old user_roles join table is only read by RoleMaskMigration.
+    @Convert(converter = RoleSetConverter.class)
+    @Column(name = "role_mask")
     private Set<Role> roles;
 
     private boolean enabled = true;
@@ -0,0 +1,6 @@
+package com.springwarden.auth.exception;
+public class ServiceUnavailableException extends RuntimeException {
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,17 @@
+package com.springwarden.auth.repository;
+
+import com.springwarden.auth.entity.JwtSigningKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface JwtSigningKeyRepository extends JpaRepository<JwtSigningKey, String> {
+
+    // Activation order; every instance sorts the same way, so they all pick the same current key.
+    List<JwtSigningKey> findByAlgorithmOrderByActivatesAtAscCreatedAtAscKeyIdAsc(String algorithm);
+
+    Optional<JwtSigningKey> findFirstByAlgorithmOrderByCreatedAtDesc(String algorithm);
+}
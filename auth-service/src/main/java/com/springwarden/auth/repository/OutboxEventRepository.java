@@ -0,0 +1,15 @@
+package com.springwarden.auth.repository;
+
+import com.springwarden.auth.entity.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Unlocked; only the holder of the OutboxRelayLease reads and deletes outbox rows for publishing.
+    List<OutboxEvent> findByOrderByIdAsc(Pageable pageable);
+}
@@ -0,0 +1,21 @@
+package com.springwarden.auth.repository;
+
+import com.springwarden.auth.entity.OutboxRelayLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+
+@Repository
+public interface OutboxRelayLeaseRepository extends JpaRepository<OutboxRelayLease, String> {
+
+    // Takes or renews the lease if this owner holds it or it has run out; 1 if it is now ours.
+    @Modifying
+    @Query("update OutboxRelayLease l set l.owner = :owner, l.expiresAt = :expiresAt " +
+           "where l.name = :name and (l.owner = :owner or l.expiresAt < :now)")
+    int tryAcquire(@Param("name") String name, @Param("owner") String owner,
+                   @Param("expiresAt") Instant expiresAt, @Param("now") Instant now);
+}
@@ -0,0 +1,144 @@
+package com.springwarden.auth.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * JDBC store for refresh-token rotation families, partitioned into one table per expiry day (UTC):
+ * refresh_tokens_yyyyMMdd and refresh_families_yyyyMMdd.
+ * <p>
+ * A row's table is derived from an expiry the caller already holds (the token's exp, or the family's
+ * fexp claim), so every lookup is a primary-key probe in a single table. Expired data is removed by
+ * dropping whole day tables once the day has passed, never by row-by-row deletes, so purge cost does
+ * not grow with the number of sessions. Token ids are stored as a 128-bit truncated SHA-256, never in
+ * the clear. Plain tables and types (UUID, BYTEA, BIGINT epoch seconds) work on both H2 and PostgreSQL.
+ */
+@Repository
+public class RefreshTokenStore {
+
+    public static final String TOKENS_PREFIX = "refresh_tokens_";
+    public static final String FAMILIES_PREFIX = "refresh_families_";
+    private static final DateTimeFormatter DAY = DateTimeFormatter.ofPattern("yyyyMMdd");
+    // SQLStates for "table does not exist": H2 and most databases, and PostgreSQL.
+    private static final Set<String> UNDEFINED_TABLE_STATES = Set.of("42S02", "42P01");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public RefreshTokenStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public record TokenRecord(byte[] tokenHash, UUID familyId, byte[] parentHash, long expiresAt, Long usedAt) {}
+
+    public record FamilyRecord(UUID familyId, String subject, long createdAt, long expiresAt, Long revokedAt) {}
+
+    public void createFamily(UUID familyId, String subject, Instant createdAt, Instant expiresAt) {
+        jdbcTemplate.update("INSERT INTO " + table(FAMILIES_PREFIX, expiresAt) +
+                        " (family_id, subject, created_at, expires_at) VALUES (?, ?, ?, ?)",
+                familyId, subject, createdAt.getEpochSecond(), expiresAt.getEpochSecond());
+    }
+
+    public void insertToken(byte[] tokenHash, UUID familyId, byte[] parentHash, Instant expiresAt) {
+        jdbcTemplate.update("INSERT INTO " + table(TOKENS_PREFIX, expiresAt) +
+                        " (token_hash, family_id, parent_hash, expires_at) VALUES (?, ?, ?, ?)",
+                tokenHash, familyId, parentHash, expiresAt.getEpochSecond());
+    }
+
+    public Optional<TokenRecord> findToken(byte[] tokenHash, Instant expiresAt) {
+        return queryBucket("SELECT token_hash, family_id, parent_hash, expires_at, used_at FROM " +
+                        table(TOKENS_PREFIX, expiresAt) + " WHERE token_hash = ?",
+                (rs, i) -> new TokenRecord(rs.getBytes(1), rs.getObject(2, UUID.class), rs.getBytes(3),
+                        rs.getLong(4), rs.getObject(5, Long.class)),
+                tokenHash);
+    }
+
+    public Optional<FamilyRecord> findFamily(UUID familyId, Instant familyExpiresAt) {
+        return queryBucket("SELECT family_id, subject, created_at, expires_at, revoked_at FROM " +
+                        table(FAMILIES_PREFIX, familyExpiresAt) + " WHERE family_id = ?",
+                (rs, i) -> new FamilyRecord(rs.getObject(1, UUID.class), rs.getString(2), rs.getLong(3),
+                        rs.getLong(4), rs.getObject(5, Long.class)),
+                familyId);
+    }
+
+    /**
+     * Marks a token as exchanged. Conditional on it not being used yet, so of two concurrent
+     * refreshes with the same token exactly one wins.
+     * @return true if this call consumed the token.
+     */
+    public boolean markUsed(byte[] tokenHash, Instant expiresAt, Instant usedAt) {
+        return jdbcTemplate.update("UPDATE " + table(TOKENS_PREFIX, expiresAt) +
+                        " SET used_at = ? WHERE token_hash = ? AND used_at IS NULL",
+                usedAt.getEpochSecond(), tokenHash) == 1;
+    }
+
+    public boolean revokeFamily(UUID familyId, Instant familyExpiresAt, Instant revokedAt) {
+        return jdbcTemplate.update("UPDATE " + table(FAMILIES_PREFIX, familyExpiresAt) +
+                        " SET revoked_at = ? WHERE family_id = ? AND revoked_at IS NULL",
+                revokedAt.getEpochSecond(), familyId) == 1;
+    }
+
+    /**
+     * Creates the day tables from today through today + horizonDays, skipping existing ones.
+     */
+    public void createBuckets(LocalDate today, int horizonDays) {
+        for (int d = 0; d <= horizonDays; d++) {
+            String day = DAY.format(today.plusDays(d));
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + FAMILIES_PREFIX + day + " (" +
+                    "family_id UUID PRIMARY KEY, subject VARCHAR(255) NOT NULL, " +
+                    "created_at BIGINT NOT NULL, expires_at BIGINT NOT NULL, revoked_at BIGINT)");
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + TOKENS_PREFIX + day + " (" +
+                    "token_hash BYTEA PRIMARY KEY, family_id UUID NOT NULL, parent_hash BYTEA, " +
+                    "expires_at BIGINT NOT NULL, used_at BIGINT)");
+        }
+    }
+
+    /**
+     * Drops every day table older than today. Everything in them expired before today started.
+     * @return The names of the dropped tables.
+     */
+    public List<String> dropBucketsBefore(LocalDate today) {
+        String cutoff = DAY.format(today);
+        List<String> expired = jdbcTemplate.queryForList(
+                        "SELECT LOWER(table_name) FROM information_schema.tables " +
+                        "WHERE LOWER(table_name) LIKE 'refresh\\_tokens\\_%' ESCAPE '\\' " +
+                        "OR LOWER(table_name) LIKE 'refresh\\_families\\_%' ESCAPE '\\'", String.class)
+                .stream()
+                .filter(name -> name.substring(name.lastIndexOf('_') + 1).compareTo(cutoff) < 0)
+                .toList();
+        expired.forEach(name -> jdbcTemplate.execute("DROP TABLE IF EXISTS " + name));
+        return expired;
+    }
+
+    private static String table(String prefix, Instant expiresAt) {
+        return prefix + DAY.format(LocalDate.ofInstant(expiresAt, ZoneOffset.UTC));
+    }
+
+    // A missing day table means nothing was ever stored there or it has been purged. Buckets are created
+    // ahead of time for every expiry a valid token can have, so this only happens for stale tokens.
+    private <T> Optional<T> queryBucket(String sql, RowMapper<T> mapper, Object arg) {
+        try {
+            return jdbcTemplate.query(sql, mapper, arg).stream().findFirst();
+        } catch (BadSqlGrammarException e) {
+            // Anything else (a broken query, a missing column) is a real error, not an absent token.
+            SQLException cause = e.getSQLException();
+            if (cause != null && UNDEFINED_TABLE_STATES.contains(cause.getSQLState())) {
+                return Optional.empty();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.springwarden.auth.security;
+
+import com.springwarden.common.util.IdentityAssertion;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.preauth.PreAuthenticatedAuthenticationToken;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Authenticates requests forwarded by the gateway from its X-User-Assertion, so protected endpoints
+ * such as /auth/user don't parse the JWT a second time. Identity headers that don't carry a valid
+ * assertion are rejected rather than ignored. Registered in SecurityConfig only, not as a servlet filter.
+ */
+public class IdentityAssertionFilter extends OncePerRequestFilter {
+
+    private final IdentityAssertion identityAssertion;
+
+    public IdentityAssertionFilter(IdentityAssertion identityAssertion) {
+        this.identityAssertion = identityAssertion;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String email = request.getHeader(IdentityAssertion.EMAIL_HEADER);
+        String roles = request.getHeader(IdentityAssertion.ROLES_HEADER);
+        String assertion = request.getHeader(IdentityAssertion.HEADER);
+        if (email == null && assertion == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (!identityAssertion.verify(email, roles, assertion)) {
+            response.sendError(HttpStatus.UNAUTHORIZED.value(), "Missing or invalid identity assertion");
+            return;
+        }
+
+        List<SimpleGrantedAuthority> authorities = roles == null || roles.isEmpty() ? List.of()
+                : Arrays.stream(roles.split(",")).map(role -> new SimpleGrantedAuthority("ROLE_" + role)).toList();
+        PreAuthenticatedAuthenticationToken authentication =
+                new PreAuthenticatedAuthenticationToken(email, null, authorities);
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        chain.doFilter(request, response);
+    }
+}
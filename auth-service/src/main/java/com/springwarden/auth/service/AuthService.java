@@ -1,5 +1,7 @@
 package com.springwarden.auth.service;
 
+import com.springwarden.auth.cache.UserIdentity;
+import com.springwarden.auth.cache.UserIdentityCache;
 import com.springwarden.auth.entity.User;
 import com.springwarden.auth.exception.EmailAlreadyExistsException;
 import com.springwarden.auth.exception.InvalidCredentialsException;
@@ -9,10 +11,12 @@ import com.springwarden.auth.repository.UserRepository;
 import com.springwarden.common.dto.*;
 import com.springwarden.common.event.UserEvent;
 import com.springwarden.common.model.Role;
+import com.springwarden.common.util.JwtPrincipal;
 import com.springwarden.common.util.JwtUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -21,7 +25,11 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -31,7 +39,12 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
     private final JwtUtil jwtUtil;
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final OutboxService outboxService;
+    private final UserIdentityCache userIdentityCache;
+    private final TokenRevocationService tokenRevocationService;
+    private final RefreshTokenService refreshTokenService;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Map<String, Timer>> phaseTimers = new ConcurrentHashMap<>();
     private final long accessExpiration;
 
     @Autowired
@@ -39,13 +52,21 @@ public class AuthService {
                        PasswordEncoder passwordEncoder,
                        AuthenticationManager authenticationManager,
                        JwtUtil jwtUtil,
-                       KafkaTemplate<String, Object> kafkaTemplate,
+                       OutboxService outboxService,
+                       UserIdentityCache userIdentityCache,
+                       TokenRevocationService tokenRevocationService,
+                       RefreshTokenService refreshTokenService,
+                       MeterRegistry meterRegistry,
                        @Qualifier("accessExpiration") long accessExpiration) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.authenticationManager = authenticationManager;
         this.jwtUtil = jwtUtil;
-        this.kafkaTemplate = kafkaTemplate;
+        this.outboxService = outboxService;
+        this.userIdentityCache = userIdentityCache;
+        this.tokenRevocationService = tokenRevocationService;
+        this.refreshTokenService = refreshTokenService;
+        this.meterRegistry = meterRegistry;
         this.accessExpiration = accessExpiration;
     }
 
@@ -53,9 +74,10 @@ public class AuthService {
     public AuthResponse login(AuthRequest request) {
         Authentication authentication;
         try {
-            authentication = authenticationManager.authenticate(
+            // User lookup plus the BCrypt check; auth.password.hash{op=matches} isolates the hash.
+            authentication = timed("login", "credentials", () -> authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(request.email(), request.password())
-            );
+            ));
         } catch (AuthenticationException e) {
             throw new InvalidCredentialsException("Invalid email or password provided.");
         }
@@ -63,69 +85,122 @@ public class AuthService {
         User user = (User) authentication.getPrincipal();
         Set<String> roleNames = user.getRoles().stream().map(Role::name).collect(Collectors.toSet());
 
-        String accessToken = jwtUtil.generateAccessToken(user.getEmail(), roleNames);
-        String refreshToken = jwtUtil.generateRefreshToken(user.getEmail());
+        String accessToken = timed("login", "token", () -> jwtUtil.generateAccessToken(user.getEmail(), roleNames));
+        String refreshToken = timed("login", "db", () -> refreshTokenService.startFamily(user.getEmail()));
 
         return new AuthResponse(accessToken, refreshToken, user.getEmail(), roleNames, accessExpiration);
     }
 
     @Transactional
     public UserDto register(RegisterRequest request) {
-        if (userRepository.existsByEmail(request.email())) {
+        if (timed("register", "db", () -> userRepository.existsByEmail(request.email()))) {
             throw new EmailAlreadyExistsException("Email '" + request.email() + "' is already in use.");
         }
 
         User user = new User(
                 request.email(),
-                passwordEncoder.encode(request.password()),
+                timed("register", "hash", () -> passwordEncoder.encode(request.password())),
                 request.firstName(),
                 request.lastName(),
                 Set.of(Role.USER) // Default role
         );
 
-        User savedUser = userRepository.save(user);
+        User savedUser = timed("register", "db", () -> userRepository.save(user));
         UserDto userDto = convertToDto(savedUser);
+        // Other instances evict on the user-events message below; this one evicts immediately.
+        userIdentityCache.evict(savedUser.getEmail());
 
-        // Publish user creation event to Kafka
+        // Publish user creation event to Kafka via the outbox, atomically with the insert above.
         UserEvent event = new UserEvent("CREATED", userDto, System.currentTimeMillis());
-        kafkaTemplate.send("user-events", event);
+        // Keyed by user id so every event for one user lands on the same partition, in order.
+        // This is the Kafka cost on the request path; the broker round trip is in outbox.relay.lag.
+        timed("register", "kafka", () -> {
+            outboxService.enqueue("user-events", String.valueOf(savedUser.getId()), event);
+            return null;
+        });
 
         return userDto;
     }
 
-    @Transactional(readOnly = true)
+    /**
+     * Exchanges a refresh token for a new access/refresh pair. The presented refresh token is
+     * consumed, so each one can be used once; presenting it again revokes its whole family.
+     */
+    @Transactional(noRollbackFor = InvalidTokenException.class)
     public AuthResponse refreshToken(String refreshToken) {
-        if (!jwtUtil.validateToken(refreshToken)) {
-            throw new InvalidTokenException("Refresh token is invalid or expired.");
-        }
-
-        String email = jwtUtil.extractUsername(refreshToken);
-        User user = userRepository.findByEmail(email)
+        RefreshTokenService.Rotation rotation = timed("refresh", "db", () -> refreshTokenService.rotate(refreshToken));
+        String email = rotation.subject();
+        UserIdentity user = timed("refresh", "user_lookup", () -> userIdentityCache.findByEmail(email))
                 .orElseThrow(() -> new ResourceNotFoundException("User associated with refresh token not found."));
 
-        Set<String> roleNames = user.getRoles().stream().map(Role::name).collect(Collectors.toSet());
+        Set<String> roleNames = user.roleNames();
 
-        String newAccessToken = jwtUtil.generateAccessToken(email, roleNames);
-        // Optionally, generate a new refresh token for rotation
-        String newRefreshToken = jwtUtil.generateRefreshToken(email);
+        String newAccessToken = timed("refresh", "token", () -> jwtUtil.generateAccessToken(email, roleNames));
 
-        return new AuthResponse(newAccessToken, newRefreshToken, email, roleNames, accessExpiration);
+        return new AuthResponse(newAccessToken, rotation.refreshToken(), email, roleNames, accessExpiration);
     }
 
     public boolean validateToken(String token) {
-        return jwtUtil.validateToken(token);
+        return verifyUnrevoked(token).isPresent();
+    }
+
+    /**
+     * Revokes the given token if it is genuine, so it is rejected everywhere before its exp.
+     * Invalid or already expired tokens are ignored, since they are unusable anyway. Revoking a
+     * refresh token also ends its family, so no token rotated from the same login can be used.
+     */
+    @Transactional
+    public void revokeToken(String token) {
+        jwtUtil.verify(token).ifPresent(principal -> {
+            tokenRevocationService.revoke(principal);
+            refreshTokenService.revokeFamily(token);
+        });
     }
 
     @Transactional(readOnly = true)
     public UserDto getUserFromToken(String token) {
-        if (!jwtUtil.validateToken(token)) {
-            throw new InvalidTokenException("Access token is invalid or expired.");
-        }
-        String email = jwtUtil.extractUsername(token);
-        User user = userRepository.findByEmail(email)
+        String email = verifyUnrevoked(token)
+                .map(JwtPrincipal::subject)
+                .orElseThrow(() -> new InvalidTokenException("Access token is invalid or expired."));
+        return getUserByEmail(email);
+    }
+
+    @Transactional(readOnly = true)
+    public UserDto getUserByEmail(String email) {
+        UserIdentity user = userIdentityCache.findByEmail(email)
                 .orElseThrow(() -> new ResourceNotFoundException("User from token not found."));
 
-        return convertToDto(user);
+        return user.toDto();
+    }
+
+    // A genuine, unexpired token that has not been revoked through /auth/revoke.
+    private Optional<JwtPrincipal> verifyUnrevoked(String token) {
+        return jwtUtil.verify(token)
+                .filter(principal -> !tokenRevocationService.isRevoked(principal.tokenId()));
+    }
+
+    /**
+     * Records one step of an operation in auth.phase, tagged with the operation and the kind of work,
+     * e.g. operation=register, phase=hash. Failed steps are recorded too.
+     */
+    private <T> T timed(String operation, String phase, Supplier<T> step) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return step.get();
+        } finally {
+            sample.stop(phaseTimer(operation, phase));
+        }
+    }
+
+    // Registered on first use and reused, so the hot path never goes back to the registry.
+    private Timer phaseTimer(String operation, String phase) {
+        return phaseTimers.computeIfAbsent(operation, o -> new ConcurrentHashMap<>())
+                .computeIfAbsent(phase, p -> Timer.builder("auth.phase")
+                        .description("Time spent in each phase of login, register and refresh")
+                        .tag("operation", operation)
+                        .tag("phase", phase)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry));
     }
 
     private UserDto convertToDto(User user) {
@@ -0,0 +1,210 @@
+package com.springwarden.auth.service;
+
+import com.springwarden.auth.entity.JwtSigningKey;
+import com.springwarden.auth.repository.JwtSigningKeyRepository;
+import com.springwarden.common.util.JwtKeyProvider;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.io.Encoders;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.PublicJwk;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Owns the asymmetric key pairs used to sign tokens when jwt.algorithm is ES256 or EdDSA.
+ * <p>
+ * Keys live in the jwt_signing_keys table, so every instance signs with the same key and publishes the
+ * same JWKS, and rotated keys survive restarts. Each instance re-reads the table every sync-interval.
+ * The current key is the most recent one whose activation time has passed; a rotated key is stored
+ * activation-delay ahead of use, so every instance and gateway has published or fetched it before the
+ * first token signed with it appears. Superseded keys stay published until every token they could have
+ * signed (a refresh token) has expired, then they are deleted.
+ */
+@Service
+@ConditionalOnExpression("'${jwt.algorithm:HS256}' != 'HS256'")
+public class JwtSigningKeyService implements JwtKeyProvider {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtSigningKeyService.class);
+
+    private final JwtSigningKeyRepository keyRepository;
+    private final String algorithm;
+    private final Duration refreshExpiration;
+    private final Duration activationDelay;
+    private final long minReloadIntervalMillis;
+    private final String configuredPrivateKey;
+    private final String configuredPublicKey;
+    private volatile Map<String, PublicJwk<?>> publishedKeys = Map.of();
+    private volatile SigningKey current;
+    private volatile long lastReload;
+
+    public JwtSigningKeyService(JwtSigningKeyRepository keyRepository,
+                                @Value("${jwt.algorithm}") String algorithm,
+                                @Value("${jwt.refresh-expiration:86400000}") long refreshExpiration,
+                                @Value("${jwt.keys.activation-delay:PT10M}") Duration activationDelay,
+                                @Value("${jwt.keys.min-reload-interval:PT10S}") Duration minReloadInterval,
+                                @Value("${jwt.keys.private-key:}") String privateKey,
+                                @Value("${jwt.keys.public-key:}") String publicKey) {
+        this.keyRepository = keyRepository;
+        this.algorithm = algorithm;
+        this.refreshExpiration = Duration.ofMillis(refreshExpiration);
+        this.activationDelay = activationDelay;
+        this.minReloadIntervalMillis = minReloadInterval.toMillis();
+        this.configuredPrivateKey = privateKey;
+        this.configuredPublicKey = publicKey;
+    }
+
+    @PostConstruct
+    void init() throws GeneralSecurityException {
+        if (!configuredPrivateKey.isBlank() && !configuredPublicKey.isBlank()) {
+            // A newly configured key takes over from now. Its predecessor is superseded from now too, so it
+            // stays published for the refresh window, and instances still running the old config verify it.
+            store(loadKeyPair(configuredPrivateKey, configuredPublicKey), Instant.now());
+        } else if (keyRepository.findFirstByAlgorithmOrderByCreatedAtDesc(algorithm).isEmpty()) {
+            log.warn("No jwt.keys configured and none stored; generating a {} key pair.", algorithm);
+            store(generateKeyPair(), Instant.now());
+        }
+        reload();
+    }
+
+    @Override
+    public SigningKey currentSigningKey() {
+        return current;
+    }
+
+    @Override
+    public PublicKey verificationKey(String keyId) {
+        PublicJwk<?> key = publishedKeys.get(keyId);
+        if (key == null && System.currentTimeMillis() - lastReload >= minReloadIntervalMillis) {
+            // Possibly stored by another instance since the last sync.
+            reload();
+            key = publishedKeys.get(keyId);
+        }
+        return key != null ? key.toKey() : null;
+    }
+
+    /**
+     * @return The public keys in JWKS format, as served to the gateway.
+     */
+    public Map<String, Object> jwkSet() {
+        List<Map<String, Object>> keys = publishedKeys.values().stream()
+                .<Map<String, Object>>map(jwk -> new LinkedHashMap<>(jwk))
+                .toList();
+        return Map.of("keys", keys);
+    }
+
+    /**
+     * Stores a new key that starts signing activation-delay from now. The cron fires on every instance;
+     * whichever gets here first creates the key and the others find it and skip.
+     */
+    @Scheduled(cron = "${jwt.keys.rotation-cron:-}")
+    public void rotate() {
+        Optional<JwtSigningKey> newest = keyRepository.findFirstByAlgorithmOrderByCreatedAtDesc(algorithm);
+        if (newest.isEmpty() || newest.get().getCreatedAt().isBefore(Instant.now().minus(activationDelay))) {
+            String keyId = store(generateKeyPair(), Instant.now().plus(activationDelay));
+            log.info("Stored rotated JWT signing key {}, active from {}", keyId, Instant.now().plus(activationDelay));
+        }
+        reload();
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.keys.sync-interval:PT30S}")
+    public synchronized void reload() {
+        lastReload = System.currentTimeMillis();
+        Instant now = Instant.now();
+        List<JwtSigningKey> stored = keyRepository.findByAlgorithmOrderByActivatesAtAscCreatedAtAscKeyIdAsc(algorithm);
+        Map<String, PublicJwk<?>> published = new LinkedHashMap<>();
+        JwtSigningKey active = null;
+        for (int i = 0; i < stored.size(); i++) {
+            JwtSigningKey key = stored.get(i);
+            Instant supersededAt = i + 1 < stored.size() ? stored.get(i + 1).getActivatesAt() : null;
+            if (supersededAt != null && supersededAt.plus(refreshExpiration).isBefore(now)) {
+                keyRepository.deleteById(key.getKeyId());
+                continue;
+            }
+            published.put(key.getKeyId(), Jwks.builder().key(decodePublicKey(key.getPublicKey())).idFromThumbprint().build());
+            if (!key.getActivatesAt().isAfter(now)) {
+                active = key;
+            }
+        }
+        publishedKeys = Map.copyOf(published);
+        if (active == null) {
+            log.error("No active JWT signing key stored for {}; keeping {}", algorithm,
+                    current != null ? current.keyId() : "none");
+        } else if (current == null || !current.keyId().equals(active.getKeyId())) {
+            SigningKey previous = current;
+            current = new SigningKey(active.getKeyId(), decodePrivateKey(active.getPrivateKey()));
+            log.info("JWT signing key is now {} (was {})", current.keyId(), previous != null ? previous.keyId() : "none");
+        }
+    }
+
+    private String store(KeyPair keyPair, Instant activatesAt) {
+        String keyId = Jwks.builder().key(keyPair.getPublic()).idFromThumbprint().build().getId();
+        if (!keyRepository.existsById(keyId)) {
+            try {
+                keyRepository.save(new JwtSigningKey(keyId, algorithm,
+                        Encoders.BASE64.encode(keyPair.getPublic().getEncoded()),
+                        Encoders.BASE64.encode(keyPair.getPrivate().getEncoded()),
+                        activatesAt));
+            } catch (DataIntegrityViolationException e) {
+                // Another instance stored the same configured key at the same time.
+            }
+        }
+        return keyId;
+    }
+
+    private KeyPair generateKeyPair() {
+        return switch (algorithm) {
+            case "ES256" -> Jwts.SIG.ES256.keyPair().build();
+            case "EdDSA" -> Jwts.SIG.EdDSA.keyPair().build();
+            default -> throw new IllegalStateException("Unsupported jwt.algorithm: " + algorithm);
+        };
+    }
+
+    private KeyPair loadKeyPair(String privateKey, String publicKey) throws GeneralSecurityException {
+        KeyFactory keyFactory = keyFactory();
+        return new KeyPair(
+                keyFactory.generatePublic(new X509EncodedKeySpec(Decoders.BASE64.decode(publicKey))),
+                keyFactory.generatePrivate(new PKCS8EncodedKeySpec(Decoders.BASE64.decode(privateKey)))
+        );
+    }
+
+    private PublicKey decodePublicKey(String publicKey) {
+        try {
+            return keyFactory().generatePublic(new X509EncodedKeySpec(Decoders.BASE64.decode(publicKey)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Stored JWT public key cannot be decoded", e);
+        }
+    }
+
+    private PrivateKey decodePrivateKey(String privateKey) {
+        try {
+            return keyFactory().generatePrivate(new PKCS8EncodedKeySpec(Decoders.BASE64.decode(privateKey)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Stored JWT private key cannot be decoded", e);
+        }
+    }
+
+    private KeyFactory keyFactory() throws GeneralSecurityException {
+        return KeyFactory.getInstance("ES256".equals(algorithm) ? "EC" : "Ed25519");
+    }
+}
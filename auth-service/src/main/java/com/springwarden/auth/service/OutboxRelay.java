@@ -0,0 +1,201 @@
+package com.springwarden.auth.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springwarden.auth.entity.OutboxEvent;
+import com.springwarden.auth.entity.OutboxRelayLease;
+import com.springwarden.auth.repository.OutboxEventRepository;
+import com.springwarden.auth.repository.OutboxRelayLeaseRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.propagation.Propagator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the outbox to Kafka in id order. Each poll sends a batch without waiting per record
+ * (the producer batches and pipelines them), then deletes the rows the broker acknowledged.
+ * Delivery is at-least-once: rows whose send failed stay and are retried on the next poll.
+ * <p>
+ * Only the instance holding the outbox lease relays, so a single publisher preserves the id order
+ * across instances. The lease is taken in a short transaction of its own and no transaction or row lock
+ * is open while sends are awaited, so a slow broker delays publishing but never blocks writers.
+ * <p>
+ * Each publish continues the trace of the request that wrote the event, in an "outbox publish" span that
+ * starts at the outbox insert and ends at the broker ack. The KafkaTemplate's send span and the record
+ * headers it injects hang off it, so the consumer joins the same trace.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+    private static final String LEASE = "outbox-relay";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final OutboxRelayLeaseRepository leaseRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration sendTimeout;
+    private final Duration leaseDuration;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Timer lagTimer;
+    private final AtomicLong oldestPendingAgeMillis = new AtomicLong();
+    private final Tracer tracer;
+    private final Propagator propagator;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       OutboxRelayLeaseRepository leaseRepository,
+                       KafkaTemplate<String, Object> kafkaTemplate,
+                       ObjectMapper objectMapper,
+                       TransactionTemplate transactionTemplate,
+                       MeterRegistry meterRegistry,
+                       ObjectProvider<Tracer> tracer,
+                       ObjectProvider<Propagator> propagator,
+                       @Value("${auth.outbox.batch-size:500}") int batchSize,
+                       @Value("${auth.outbox.send-timeout:PT10S}") Duration sendTimeout,
+                       @Value("${auth.outbox.lease-duration:PT1M}") Duration leaseDuration) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.leaseRepository = leaseRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.sendTimeout = sendTimeout;
+        this.leaseDuration = leaseDuration;
+        this.tracer = tracer.getIfAvailable(() -> Tracer.NOOP);
+        this.propagator = propagator.getIfAvailable(() -> Propagator.NOOP);
+        // Commit-to-ack latency per event, and the age of the oldest event still waiting.
+        this.lagTimer = Timer.builder("outbox.relay.lag")
+                .description("Time from outbox insert to broker acknowledgement")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        meterRegistry.gauge("outbox.oldest.pending.age", oldestPendingAgeMillis, AtomicLong::doubleValue);
+    }
+
+    @Scheduled(fixedDelayString = "${auth.outbox.poll-interval:PT0.2S}")
+    public void relay() {
+        int sent;
+        do {
+            if (!acquireLease()) {
+                return;
+            }
+            sent = relayBatch();
+        } while (sent == batchSize);
+    }
+
+    // Renewed before every batch, so it only lapses if this instance stops or a batch outlives leaseDuration.
+    private boolean acquireLease() {
+        Instant now = Instant.now();
+        Integer renewed = transactionTemplate.execute(
+                status -> leaseRepository.tryAcquire(LEASE, instanceId, now.plus(leaseDuration), now));
+        if (renewed != null && renewed == 1) {
+            return true;
+        }
+        try {
+            // The first relay on a fresh database creates the lease row.
+            return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                if (leaseRepository.existsById(LEASE)) {
+                    return false;
+                }
+                leaseRepository.saveAndFlush(new OutboxRelayLease(LEASE, instanceId, now.plus(leaseDuration)));
+                return true;
+            }));
+        } catch (DataIntegrityViolationException e) {
+            // Another instance created it first.
+            return false;
+        }
+    }
+
+    private int relayBatch() {
+        List<OutboxEvent> batch = outboxEventRepository.findByOrderByIdAsc(PageRequest.of(0, batchSize));
+        if (batch.isEmpty()) {
+            oldestPendingAgeMillis.set(0);
+            return 0;
+        }
+        oldestPendingAgeMillis.set(Duration.between(batch.get(0).getCreatedAt(), Instant.now()).toMillis());
+
+        // No new send is started once one has failed, so nothing later in the batch overtakes the failed
+        // event. Sends already in flight can't overtake it on its partition either: the idempotent
+        // producer fails every later batch for a partition once one of its batches has failed.
+        List<CompletableFuture<?>> sends = new ArrayList<>(batch.size());
+        List<Span> spans = new ArrayList<>(batch.size());
+        AtomicBoolean failed = new AtomicBoolean();
+        for (OutboxEvent event : batch) {
+            if (failed.get()) {
+                break;
+            }
+            Span span = publishSpan(event);
+            spans.add(span);
+            try (Tracer.SpanInScope scope = tracer.withSpan(span)) {
+                Object payload = objectMapper.readValue(event.getPayload(), Class.forName(event.getPayloadType()));
+                sends.add(kafkaTemplate.send(event.getTopic(), event.getMessageKey(), payload)
+                        .whenComplete((result, e) -> {
+                            if (e != null) {
+                                failed.set(true);
+                            }
+                        }));
+            } catch (Exception e) {
+                failed.set(true);
+                sends.add(CompletableFuture.failedFuture(e));
+            }
+        }
+
+        // Only the unbroken acknowledged prefix is deleted; everything from the first failure on is
+        // re-sent on the next poll. Consumers already tolerate duplicates (at-least-once delivery).
+        List<OutboxEvent> acknowledged = new ArrayList<>(batch.size());
+        for (int i = 0; i < sends.size(); i++) {
+            try {
+                sends.get(i).get(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (Exception e) {
+                log.warn("Outbox relay stopped at event {}; will retry: {}", batch.get(i).getId(), e.getMessage());
+                spans.get(i).error(e);
+                break;
+            }
+            lagTimer.record(Duration.between(batch.get(i).getCreatedAt(), Instant.now()));
+            acknowledged.add(batch.get(i));
+        }
+        for (int i = acknowledged.size(); i < spans.size(); i++) {
+            spans.get(i).tag("outbox.retry", "true");
+        }
+        spans.forEach(Span::end);
+        if (!acknowledged.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> outboxEventRepository.deleteAllInBatch(acknowledged));
+        }
+        return acknowledged.size();
+    }
+
+    // Starts at the outbox insert, so the span covers the time the event waited for the relay as well.
+    private Span publishSpan(OutboxEvent event) {
+        // Events written outside a traced request (or before tracing was added) start a trace of their own.
+        Span.Builder builder = event.getTraceParent() == null
+                ? tracer.spanBuilder()
+                : propagator.extract(Map.of("traceparent", event.getTraceParent()), Map::get);
+        return builder.name("outbox publish")
+                .tag("messaging.destination.name", event.getTopic())
+                .tag("outbox.id", String.valueOf(event.getId()))
+                .startTimestamp(event.getCreatedAt().toEpochMilli(), TimeUnit.MILLISECONDS)
+                .start();
+    }
+}
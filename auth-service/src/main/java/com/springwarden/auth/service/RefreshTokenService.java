@@ -0,0 +1,215 @@
+package com.springwarden.auth.service;
+
+import com.springwarden.auth.exception.InvalidTokenException;
+import com.springwarden.auth.repository.RefreshTokenStore;
+import com.springwarden.common.util.JwtPrincipal;
+import com.springwarden.common.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Refresh-token rotation with reuse detection.
+ * <p>
+ * A login starts a family with an absolute lifetime (auth.refresh.family-max-lifetime). Every refresh
+ * consumes the presented token and issues a child in the same family. Presenting a token that was
+ * already consumed means a copy of it exists somewhere else, so the whole family is revoked: the
+ * attacker's and the legitimate user's next refresh both fail and the user has to log in again.
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenService.class);
+    private static final int HASH_BYTES = 16;
+
+    private final RefreshTokenStore refreshTokenStore;
+    private final JwtUtil jwtUtil;
+    private final TokenRevocationService tokenRevocationService;
+    private final Duration refreshExpiration;
+    private final Duration familyMaxLifetime;
+    private final Instant legacyCutover;
+    private final Counter reuseDetected;
+
+    @Autowired
+    public RefreshTokenService(RefreshTokenStore refreshTokenStore,
+                               JwtUtil jwtUtil,
+                               TokenRevocationService tokenRevocationService,
+                               MeterRegistry meterRegistry,
+                               @Value("${jwt.refresh-expiration:86400000}") long refreshExpirationMillis,
+                               @Value("${auth.refresh.family-max-lifetime:P30D}") Duration familyMaxLifetime,
+                               @Value("${auth.refresh.legacy-cutover:}") String legacyCutover) {
+        this.refreshTokenStore = refreshTokenStore;
+        this.jwtUtil = jwtUtil;
+        this.tokenRevocationService = tokenRevocationService;
+        this.refreshExpiration = Duration.ofMillis(refreshExpirationMillis);
+        this.familyMaxLifetime = familyMaxLifetime;
+        this.legacyCutover = legacyCutover.isBlank() ? null : Instant.parse(legacyCutover);
+        this.reuseDetected = Counter.builder("auth.refresh.reuse-detected")
+                .description("Refresh tokens presented after they had already been exchanged")
+                .register(meterRegistry);
+    }
+
+    public record Rotation(String subject, String refreshToken) {}
+
+    /**
+     * Starts a new family for a fresh login.
+     * @return The family's first refresh token.
+     */
+    @Transactional
+    public String startFamily(String subject) {
+        Instant now = Instant.now();
+        UUID familyId = UUID.randomUUID();
+        Instant familyExpiresAt = now.plus(familyMaxLifetime);
+        refreshTokenStore.createFamily(familyId, subject, now, familyExpiresAt);
+        return issue(subject, familyId, familyExpiresAt, null, now);
+    }
+
+    /**
+     * Consumes a refresh token and issues its successor.
+     * The family revocation on reuse must survive the exception that rejects the request.
+     */
+    @Transactional(noRollbackFor = InvalidTokenException.class)
+    public Rotation rotate(String refreshToken) {
+        Claims claims;
+        try {
+            claims = jwtUtil.extractClaim(refreshToken, c -> c);
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new InvalidTokenException("Refresh token is invalid or expired.");
+        }
+        // Access tokens are signed with the same key; only refresh tokens may be exchanged.
+        String type = claims.get(JwtUtil.TOKEN_TYPE_CLAIM, String.class);
+        if (claims.get("roles") != null || (type != null && !JwtUtil.REFRESH_TOKEN_TYPE.equals(type))) {
+            throw new InvalidTokenException("Refresh token is invalid or expired.");
+        }
+        Instant now = Instant.now();
+        String subject = claims.getSubject();
+        String familyClaim = claims.get(JwtUtil.FAMILY_ID_CLAIM, String.class);
+        if (familyClaim == null) {
+            return migrateLegacy(refreshToken, claims);
+        }
+
+        UUID familyId = UUID.fromString(familyClaim);
+        Instant familyExpiresAt = Instant.ofEpochSecond(claims.get(JwtUtil.FAMILY_EXPIRES_AT_CLAIM, Long.class));
+        Instant expiresAt = claims.getExpiration().toInstant();
+        byte[] tokenHash = hash(claims.getId());
+
+        RefreshTokenStore.TokenRecord token = refreshTokenStore.findToken(tokenHash, expiresAt)
+                .filter(t -> t.familyId().equals(familyId))
+                .orElseThrow(() -> new InvalidTokenException("Refresh token is invalid or expired."));
+        RefreshTokenStore.FamilyRecord family = refreshTokenStore.findFamily(familyId, familyExpiresAt)
+                .filter(f -> f.revokedAt() == null)
+                .orElseThrow(() -> new InvalidTokenException("Refresh token has been revoked."));
+
+        if (token.usedAt() != null || !refreshTokenStore.markUsed(tokenHash, expiresAt, now)) {
+            refreshTokenStore.revokeFamily(familyId, familyExpiresAt, now);
+            reuseDetected.increment();
+            log.warn("Refresh token reuse detected for {}; revoked token family {}", family.subject(), familyId);
+            throw new InvalidTokenException("Refresh token has already been used. Please log in again.");
+        }
+        return new Rotation(subject, issue(subject, familyId, familyExpiresAt, tokenHash, now));
+    }
+
+    /**
+     * Ends the session a refresh token belongs to, e.g. on logout.
+     */
+    @Transactional
+    public void revokeFamily(String refreshToken) {
+        Claims claims;
+        try {
+            claims = jwtUtil.extractClaim(refreshToken, c -> c);
+        } catch (JwtException | IllegalArgumentException e) {
+            return;
+        }
+        String familyClaim = claims.get(JwtUtil.FAMILY_ID_CLAIM, String.class);
+        Long familyExpiresAt = claims.get(JwtUtil.FAMILY_EXPIRES_AT_CLAIM, Long.class);
+        if (familyClaim != null && familyExpiresAt != null) {
+            refreshTokenStore.revokeFamily(UUID.fromString(familyClaim), Instant.ofEpochSecond(familyExpiresAt), Instant.now());
+        }
+    }
+
+    // Runs before the web server starts, so the first refresh after a deploy never finds its day table missing.
+    @PostConstruct
+    void createInitialBuckets() {
+        maintainBuckets();
+    }
+
+    /**
+     * Keeps a day table ready for every expiry a new token can get, and drops the days that have passed.
+     */
+    @Scheduled(cron = "${auth.refresh.bucket-maintenance-cron:0 5 * * * *}")
+    public void maintainBuckets() {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        refreshTokenStore.createBuckets(today, (int) familyMaxLifetime.toDays() + 1);
+        List<String> dropped = refreshTokenStore.dropBucketsBefore(today);
+        if (!dropped.isEmpty()) {
+            log.info("Dropped expired refresh token partitions {}", dropped);
+        }
+    }
+
+    private String issue(String subject, UUID familyId, Instant familyExpiresAt, byte[] parentHash, Instant now) {
+        String tokenId = UUID.randomUUID().toString();
+        Instant expiresAt = now.plus(refreshExpiration);
+        if (expiresAt.isAfter(familyExpiresAt)) {
+            expiresAt = familyExpiresAt;
+        }
+        refreshTokenStore.insertToken(hash(tokenId), familyId, parentHash, expiresAt);
+        return jwtUtil.generateRefreshToken(subject, tokenId, familyId.toString(), familyExpiresAt, expiresAt);
+    }
+
+    /**
+     * Refresh tokens issued before families existed (auth.refresh.legacy-cutover): accept each once, then
+     * move the session into a family. Tokens issued at or after the cutover, or any at all when it is
+     * unset, are rejected, so a family-less token can't be used to open sessions beyond the family limit.
+     * Single use is keyed on the jti, or on a hash of the whole token for those issued before jtis.
+     */
+    private Rotation migrateLegacy(String refreshToken, Claims claims) {
+        Date issuedAt = claims.getIssuedAt();
+        if (legacyCutover == null || issuedAt == null || !issuedAt.toInstant().isBefore(legacyCutover)) {
+            throw new InvalidTokenException("Refresh token is invalid or expired.");
+        }
+        String tokenId = claims.getId() != null
+                ? claims.getId()
+                : "sha256:" + HexFormat.of().formatHex(sha256(refreshToken));
+        JwtPrincipal principal = new JwtPrincipal(claims.getSubject(), Set.of(),
+                claims.getExpiration().toInstant(), tokenId);
+        if (!tokenRevocationService.revoke(principal)) {
+            throw new InvalidTokenException("Refresh token has already been used or revoked.");
+        }
+        return new Rotation(principal.subject(), startFamily(principal.subject()));
+    }
+
+    static byte[] hash(String tokenId) {
+        return Arrays.copyOf(sha256(tokenId), HASH_BYTES);
+    }
+
+    private static byte[] sha256(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
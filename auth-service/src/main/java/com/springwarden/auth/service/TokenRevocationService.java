@@ -0,0 +1,119 @@
+package com.springwarden.auth.service;
+
+import com.springwarden.auth.entity.RevokedToken;
+import com.springwarden.auth.repository.RevokedTokenRepository;
+import com.springwarden.common.event.TokenRevokedEvent;
+import com.springwarden.common.util.JwtPrincipal;
+import com.springwarden.common.util.RevocationList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+
+/**
+ * Records revoked token ids and broadcasts them on token-revocations through the outbox.
+ * <p>
+ * The revoked_tokens table is the source of truth; its primary key is what makes refresh tokens
+ * single-use (see {@link #revoke(JwtPrincipal)}). Each instance also keeps a RevocationList, filled from the table at startup and from the
+ * broadcast afterwards, for the per-request checks in /auth/validate and /auth/introspect.
+ */
+@Service
+public class TokenRevocationService {
+
+    public static final String TOPIC = "token-revocations";
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final OutboxService outboxService;
+    private final RevocationList revocations;
+    private final TransactionTemplate ownTransaction;
+
+    @Autowired
+    public TokenRevocationService(RevokedTokenRepository revokedTokenRepository,
+                                  OutboxService outboxService,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${auth.revocation.expected-revocations:100000}") int expectedRevocations,
+                                  @Value("${auth.revocation.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.outboxService = outboxService;
+        this.revocations = new RevocationList(expectedRevocations, falsePositiveRate);
+        this.ownTransaction = new TransactionTemplate(transactionManager);
+        this.ownTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Revokes a verified token. Tokens without a jti (issued before revocation existed) are ignored.
+     * <p>
+     * The row and its broadcast are committed in a transaction of their own, whatever the caller's is.
+     * Of two concurrent revocations of one token the loser hits the primary key; only that inner
+     * transaction rolls back, so the caller's transaction is not left marked rollback-only.
+     * @return true if this call revoked the token, false if it was already revoked or has no jti.
+     */
+    public boolean revoke(JwtPrincipal principal) {
+        String tokenId = principal.tokenId();
+        if (tokenId == null || principal.expiresAt() == null || revokedTokenRepository.existsById(tokenId)) {
+            return false;
+        }
+        try {
+            ownTransaction.executeWithoutResult(status -> {
+                // Flushed now so that two concurrent revocations of one token can't both succeed.
+                revokedTokenRepository.saveAndFlush(new RevokedToken(tokenId, principal.expiresAt()));
+                outboxService.enqueue(TOPIC, tokenId, new TokenRevokedEvent(tokenId, principal.expiresAt().toEpochMilli()));
+                // Other instances learn about it from the broadcast; this one applies it as soon as it commits.
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        revocations.add(tokenId, principal.expiresAt());
+                    }
+                });
+            });
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * In-memory check, for hot paths. May briefly lag revocations made on other instances.
+     */
+    public boolean isRevoked(String tokenId) {
+        return revocations.isRevoked(tokenId);
+    }
+
+    @KafkaListener(topics = TOPIC, containerFactory = "userCacheInvalidationListenerFactory")
+    public void onTokenRevoked(TokenRevokedEvent event) {
+        revocations.add(event.tokenId(), Instant.ofEpochMilli(event.expiresAt()));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadRevocations() {
+        revokedTokenRepository.findByExpiresAtAfter(Instant.now())
+                .forEach(token -> revocations.add(token.getTokenId(), token.getExpiresAt()));
+        log.info("Loaded {} active token revocation(s)", revocations.size());
+    }
+
+    @Scheduled(fixedDelayString = "${auth.revocation.purge-interval:PT10M}")
+    @Transactional
+    public void purgeExpired() {
+        int deleted = revokedTokenRepository.deleteExpired(Instant.now());
+        revocations.purgeExpired();
+        if (deleted > 0) {
+            log.debug("Purged {} expired token revocation(s)", deleted);
+        }
+    }
+}
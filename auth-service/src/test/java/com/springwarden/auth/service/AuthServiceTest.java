@@ -0,0 +1,64 @@
+package com.springwarden.auth.service;
+
+import com.springwarden.auth.cache.UserIdentityCache;
+import com.springwarden.auth.exception.InvalidTokenException;
+import com.springwarden.auth.repository.UserRepository;
+import com.springwarden.common.util.JwtPrincipal;
+import com.springwarden.common.util.JwtUtil;
+import com.springwarden.common.util.RevocationList;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AuthServiceTest {
+
+    private static final String TOKEN = "signed.access.token";
+
+    private final JwtUtil jwtUtil = mock(JwtUtil.class);
+    private final UserIdentityCache userIdentityCache = mock(UserIdentityCache.class);
+    private final TokenRevocationService tokenRevocationService = mock(TokenRevocationService.class);
+    private final RevocationList revocations = new RevocationList(100, 0.01);
+    private AuthService authService;
+
+    @BeforeEach
+    void setUp() {
+        // Revocations go to a real RevocationList, as TokenRevocationService does once its transaction commits.
+        when(tokenRevocationService.revoke(any())).thenAnswer(invocation -> {
+            JwtPrincipal principal = invocation.getArgument(0);
+            revocations.add(principal.tokenId(), principal.expiresAt());
+            return true;
+        });
+        when(tokenRevocationService.isRevoked(anyString()))
+                .thenAnswer(invocation -> revocations.isRevoked(invocation.getArgument(0)));
+        when(jwtUtil.verify(TOKEN)).thenReturn(Optional.of(
+                new JwtPrincipal("user@example.com", Set.of("USER"), Instant.now().plusSeconds(3600), "token-1")));
+
+        authService = new AuthService(mock(UserRepository.class), mock(PasswordEncoder.class),
+                mock(AuthenticationManager.class), jwtUtil, mock(OutboxService.class), userIdentityCache,
+                tokenRevocationService, mock(RefreshTokenService.class), new SimpleMeterRegistry(), 3_600_000L);
+    }
+
+    @Test
+    void getUserFromTokenRejectsRevokedToken() {
+        authService.revokeToken(TOKEN);
+
+        assertThrows(InvalidTokenException.class, () -> authService.getUserFromToken(TOKEN));
+        assertFalse(authService.validateToken(TOKEN));
+        verify(userIdentityCache, never()).findByEmail(anyString());
+    }
+}
@@ -0,0 +1,95 @@
+package com.springwarden.benchmarks;
+
+import com.springwarden.common.util.IdentityAssertion;
+import com.springwarden.common.util.JwtKeyProvider;
+import com.springwarden.common.util.JwtUtil;
+import com.springwarden.gateway.security.RevokedTokenRegistry;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.KeyPair;
+import java.security.PublicKey;
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Builds the components under test the same way Spring would, without starting a context.
+ */
+final class BenchmarkFixtures {
+
+    static final String SECRET = "c3ByaW5nd2FyZGVuLXNlY3JldC1rZXktZm9yLWRldmVsb3BtZW50LXB1cnBvc2VzLW9ubHk=";
+    static final String EMAIL = "bench.user@springwarden.com";
+
+    private BenchmarkFixtures() {}
+
+    static JwtUtil jwtUtil() {
+        return jwtUtil("HS256");
+    }
+
+    /**
+     * @param algorithm HS256 for the shared-secret path, or ES256/EdDSA to sign and verify with a key pair.
+     */
+    static JwtUtil jwtUtil(String algorithm) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "accessExpiration", 3_600_000L);
+        ReflectionTestUtils.setField(jwtUtil, "refreshExpiration", 604_800_000L);
+        if (!"HS256".equals(algorithm)) {
+            ReflectionTestUtils.setField(jwtUtil, "keyProvider", new StaticKeyProvider(switch (algorithm) {
+                case "ES256" -> Jwts.SIG.ES256.keyPair().build();
+                case "EdDSA" -> Jwts.SIG.EdDSA.keyPair().build();
+                default -> throw new IllegalArgumentException("Unsupported algorithm: " + algorithm);
+            }));
+        }
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+        return jwtUtil;
+    }
+
+    static IdentityAssertion identityAssertion() {
+        return identityAssertion(SECRET);
+    }
+
+    static IdentityAssertion identityAssertion(String secret) {
+        IdentityAssertion identityAssertion = new IdentityAssertion();
+        ReflectionTestUtils.setField(identityAssertion, "secret", secret);
+        ReflectionTestUtils.setField(identityAssertion, "maxAge", Duration.ofSeconds(60));
+        ReflectionTestUtils.invokeMethod(identityAssertion, "init");
+        return identityAssertion;
+    }
+
+    static RevokedTokenRegistry revokedTokens() {
+        return new RevokedTokenRegistry(100_000, 0.01, new SimpleMeterRegistry());
+    }
+
+    /**
+     * The real Role enum only has four values, so larger sets are padded with synthetic
+     * role names to see how claim size affects signing and parsing.
+     */
+    static Set<String> roles(int count) {
+        Set<String> roles = new LinkedHashSet<>();
+        for (int i = 0; i < count; i++) {
+            roles.add(i == 0 ? "USER" : "ROLE_" + i);
+        }
+        return roles;
+    }
+
+    /**
+     * Single fixed key pair, standing in for auth-service's key store and the gateway's JWKS cache.
+     */
+    private record StaticKeyProvider(KeyPair keyPair) implements JwtKeyProvider {
+
+        private static final String KEY_ID = "bench";
+
+        @Override
+        public SigningKey currentSigningKey() {
+            return new SigningKey(KEY_ID, keyPair.getPrivate());
+        }
+
+        @Override
+        public PublicKey verificationKey(String keyId) {
+            return KEY_ID.equals(keyId) ? keyPair.getPublic() : null;
+        }
+    }
+}
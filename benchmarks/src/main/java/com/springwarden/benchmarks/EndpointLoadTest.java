@@ -0,0 +1,171 @@
+package com.springwarden.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springwarden.common.util.IdentityAssertion;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop HTTP load against a running service, for comparing platform and virtual-thread mode
+ * (VIRTUAL_THREADS_ENABLED=false/true) on the same hardware. Not a JMH benchmark: run it directly,
+ * once per mode, and compare the throughput and latency lines.
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar com.springwarden.benchmarks.EndpointLoadTest \
+ *     scenario=refresh url=http://localhost:8081 concurrency=400 duration=PT60S email=... password=...
+ * java -cp benchmarks/target/benchmarks.jar com.springwarden.benchmarks.EndpointLoadTest \
+ *     scenario=profile url=http://localhost:8082 concurrency=400 duration=PT60S email=...
+ * </pre>
+ * "refresh" logs each client in once and then rotates its refresh token in a loop against auth-service.
+ * "profile" calls user-service's /api/users/profile with the identity headers the gateway would set,
+ * signed with assertion-secret (the development default unless given). Both go to the service directly,
+ * so the gateway's rate limits and response cache don't mask the service's own capacity.
+ */
+public class EndpointLoadTest {
+
+    private static final String DEFAULT_ASSERTION_SECRET =
+            "c3ByaW5nd2FyZGVuLWlkZW50aXR5LWFzc2VydGlvbi1rZXktZm9yLWRldmVsb3BtZW50LW9ubHk=";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        String scenario = options.getOrDefault("scenario", "profile");
+        String url = options.getOrDefault("url", "refresh".equals(scenario) ? "http://localhost:8081" : "http://localhost:8082");
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "200"));
+        Duration duration = Duration.parse(options.getOrDefault("duration", "PT30S"));
+        String email = options.getOrDefault("email", BenchmarkFixtures.EMAIL);
+        String password = options.getOrDefault("password", "password");
+        IdentityAssertion assertion = BenchmarkFixtures.identityAssertion(
+                options.getOrDefault("assertion-secret", DEFAULT_ASSERTION_SECRET));
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        AtomicLong errors = new AtomicLong();
+        long deadline = System.nanoTime() + duration.toNanos();
+
+        // Client side on virtual threads, so the driver itself is never the thread-count bottleneck.
+        List<long[]> latencies = new ArrayList<>();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<long[]>> results = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                results.add(clients.submit(() -> switch (scenario) {
+                    case "refresh" -> runRefresh(client, url, email, password, deadline, errors);
+                    case "profile" -> runProfile(client, url, email, assertion, deadline, errors);
+                    default -> throw new IllegalArgumentException("Unknown scenario: " + scenario);
+                }));
+            }
+            for (Future<long[]> result : results) {
+                latencies.add(result.get());
+            }
+        }
+        report(scenario, concurrency, duration, latencies, errors.get());
+    }
+
+    private static long[] runRefresh(HttpClient client, String url, String email, String password,
+                                     long deadline, AtomicLong errors) throws IOException, InterruptedException {
+        String refreshToken = post(client, url + "/auth/login",
+                MAPPER.writeValueAsString(Map.of("email", email, "password", password))).get("refreshToken");
+        if (refreshToken == null) {
+            errors.incrementAndGet();
+        }
+        Samples samples = new Samples();
+        while (System.nanoTime() < deadline && refreshToken != null) {
+            long start = System.nanoTime();
+            Map<String, String> response = post(client, url + "/auth/refresh",
+                    MAPPER.writeValueAsString(Map.of("refreshToken", refreshToken)));
+            samples.add(System.nanoTime() - start);
+            refreshToken = response.get("refreshToken");
+            if (refreshToken == null) {
+                // A failed rotation leaves this client without a usable token; it stops here.
+                errors.incrementAndGet();
+            }
+        }
+        return samples.toArray();
+    }
+
+    private static long[] runProfile(HttpClient client, String url, String email, IdentityAssertion assertion,
+                                     long deadline, AtomicLong errors) throws IOException, InterruptedException {
+        Samples samples = new Samples();
+        while (System.nanoTime() < deadline) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(url + "/api/users/profile"))
+                    .header(IdentityAssertion.EMAIL_HEADER, email)
+                    .header(IdentityAssertion.ROLES_HEADER, "USER")
+                    .header(IdentityAssertion.HEADER, assertion.issue(email, "USER"))
+                    .GET()
+                    .build();
+            long start = System.nanoTime();
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            samples.add(System.nanoTime() - start);
+            if (response.statusCode() != 200) {
+                errors.incrementAndGet();
+            }
+        }
+        return samples.toArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, String> post(HttpClient client, String url, String json) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            return Map.of();
+        }
+        Map<String, Object> body = MAPPER.readValue(response.body(), Map.class);
+        Map<String, String> strings = new HashMap<>();
+        body.forEach((key, value) -> strings.put(key, String.valueOf(value)));
+        return strings;
+    }
+
+    private static void report(String scenario, int concurrency, Duration duration, List<long[]> perClient, long errors) {
+        long[] all = perClient.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        if (all.length == 0) {
+            System.out.printf("%s: no requests completed (%d errors)%n", scenario, errors);
+            return;
+        }
+        System.out.printf("%s  concurrency=%d  requests=%d  errors=%d  throughput=%.1f req/s%n",
+                scenario, concurrency, all.length, errors, all.length / (duration.toNanos() / 1e9));
+        System.out.printf("latency ms  p50=%.2f  p90=%.2f  p99=%.2f  max=%.2f%n",
+                percentile(all, 0.50), percentile(all, 0.90), percentile(all, 0.99), all[all.length - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)] / 1e6;
+    }
+
+    // Growable long array; one per client thread, so no synchronization.
+    private static final class Samples {
+        private long[] values = new long[1024];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
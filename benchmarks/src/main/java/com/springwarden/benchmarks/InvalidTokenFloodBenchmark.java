@@ -0,0 +1,97 @@
+package com.springwarden.benchmarks;
+
+import com.springwarden.common.util.JwtUtil;
+import com.springwarden.gateway.cache.VerifiedTokenCache;
+import com.springwarden.gateway.filter.JwtAuthenticationFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test for the gateway authentication filter under an invalid-token flood.
+ * All requests are dispatched onto one shared single-threaded scheduler standing in for a Netty
+ * event loop. Compare the p99 of "baseline:valid" with "flood:valid": with inline verification the
+ * valid (cache-hit) requests queue behind every failed signature check, with offload enabled they don't.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Group)
+public class InvalidTokenFloodBenchmark {
+
+    @Param({"false", "true"})
+    private boolean offload;
+
+    private Scheduler eventLoop;
+    private Scheduler verificationPool;
+    private GatewayFilter filter;
+    private String validToken;
+    private String invalidToken;
+
+    @Setup
+    public void setUp() {
+        eventLoop = Schedulers.newSingle("event-loop");
+        verificationPool = Schedulers.newBoundedElastic(
+                Runtime.getRuntime().availableProcessors(), 1024, "jwt-verify");
+
+        JwtUtil jwtUtil = BenchmarkFixtures.jwtUtil();
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 10_000, Duration.ofMinutes(5), new SimpleMeterRegistry());
+        filter = new JwtAuthenticationFilter(jwtUtil, cache, BenchmarkFixtures.identityAssertion(),
+                BenchmarkFixtures.revokedTokens(), new SimpleMeterRegistry(), offload ? Optional.of(verificationPool) : Optional.empty())
+                .apply(new JwtAuthenticationFilter.Config());
+
+        validToken = jwtUtil.generateAccessToken(BenchmarkFixtures.EMAIL, BenchmarkFixtures.roles(2));
+        // Same shape as a real token, but the signature no longer matches, so every request pays for a full verify.
+        String forged = jwtUtil.generateAccessToken("attacker@springwarden.com", BenchmarkFixtures.roles(2));
+        invalidToken = forged.substring(0, forged.length() - 4) + "AAAA";
+
+        // Legitimate clients reuse their token, so the valid one is already in the verified-token cache.
+        request(validToken).block();
+    }
+
+    @TearDown
+    public void tearDown() {
+        eventLoop.dispose();
+        verificationPool.dispose();
+    }
+
+    @Benchmark
+    @Group("baseline")
+    @GroupThreads(1)
+    public void valid() {
+        request(validToken).block();
+    }
+
+    @Benchmark
+    @Group("flood")
+    @GroupThreads(1)
+    public void floodValid() {
+        request(validToken).block();
+    }
+
+    @Benchmark
+    @Group("flood")
+    @GroupThreads(4)
+    public void floodInvalid() {
+        request(invalidToken).block();
+    }
+
+    private Mono<Void> request(String token) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/users/profile")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token));
+        return Mono.defer(() -> filter.filter(exchange, mutated -> Mono.empty()))
+                .subscribeOn(eventLoop);
+    }
+}
@@ -0,0 +1,60 @@
+package com.springwarden.benchmarks;
+
+import com.springwarden.common.util.JwtPrincipal;
+import com.springwarden.common.util.JwtUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtUtilBenchmark {
+
+    @Param({"1", "4", "16"})
+    private int roleCount;
+
+    @Param({"HS256", "ES256", "EdDSA"})
+    private String algorithm;
+
+    private JwtUtil jwtUtil;
+    private Set<String> roles;
+    private String accessToken;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = BenchmarkFixtures.jwtUtil(algorithm);
+        roles = BenchmarkFixtures.roles(roleCount);
+        accessToken = jwtUtil.generateAccessToken(BenchmarkFixtures.EMAIL, roles);
+    }
+
+    @Benchmark
+    public String generateAccessToken() {
+        return jwtUtil.generateAccessToken(BenchmarkFixtures.EMAIL, roles);
+    }
+
+    @Benchmark
+    public String generateRefreshToken() {
+        return jwtUtil.generateRefreshToken(BenchmarkFixtures.EMAIL);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtUtil.validateToken(accessToken);
+    }
+
+    @Benchmark
+    public Set<String> extractRoles() {
+        return jwtUtil.extractRoles(accessToken);
+    }
+
+    @Benchmark
+    public Optional<JwtPrincipal> verify() {
+        return jwtUtil.verify(accessToken);
+    }
+}
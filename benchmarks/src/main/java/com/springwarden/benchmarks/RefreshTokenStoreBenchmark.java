@@ -0,0 +1,188 @@
+package com.springwarden.benchmarks;
+
+import com.springwarden.auth.repository.RefreshTokenStore;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Refresh token store at large session counts, on an in-memory H2 database.
+ * "lookup" is the read side of a refresh (token and family by primary key), "rotate" the full
+ * exchange: lookup, consume the token, insert its child. Tokens are consumed in order, so once
+ * every session has been rotated the remaining calls measure the reuse path instead.
+ * The purge benchmarks compare dropping one expired day table with deleting the same rows from a
+ * single table by expires_at.
+ * <p>
+ * 10M sessions need a large heap, e.g. -jvmArgs -Xmx16g.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RefreshTokenStoreBenchmark {
+
+    // Sessions are spread evenly over this many expiry days.
+    private static final int DAYS = 7;
+    private static final int BATCH = 10_000;
+
+    @Param({"1000000", "10000000"})
+    private int sessions;
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private RefreshTokenStore store;
+    private LocalDate today;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:refresh-tokens;DB_CLOSE_DELAY=-1", true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        store = new RefreshTokenStore(jdbcTemplate);
+        today = LocalDate.now(ZoneOffset.UTC);
+        store.createBuckets(today, DAYS + 1);
+
+        long createdAt = Instant.now().getEpochSecond();
+        for (int day = 0; day < DAYS; day++) {
+            String suffix = today.plusDays(day + 1).toString().replace("-", "");
+            List<Object[]> families = new ArrayList<>(BATCH);
+            List<Object[]> tokens = new ArrayList<>(BATCH);
+            for (int i = day; i < sessions; i += DAYS) {
+                long expiresAt = expiresAt(i).getEpochSecond();
+                families.add(new Object[]{familyId(i), "user" + i + "@springwarden.com", createdAt, expiresAt});
+                tokens.add(new Object[]{tokenHash(i), familyId(i), expiresAt});
+                if (tokens.size() == BATCH) {
+                    flush(suffix, families, tokens);
+                }
+            }
+            flush(suffix, families, tokens);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        jdbcTemplate.execute("SHUTDOWN");
+        dataSource.destroy();
+    }
+
+    @Benchmark
+    public Optional<RefreshTokenStore.FamilyRecord> lookup() {
+        int i = ThreadLocalRandom.current().nextInt(sessions);
+        Instant expiresAt = expiresAt(i);
+        return store.findToken(tokenHash(i), expiresAt)
+                .flatMap(token -> store.findFamily(token.familyId(), expiresAt));
+    }
+
+    @Benchmark
+    public boolean rotate() {
+        int i = cursor++ % sessions;
+        byte[] hash = tokenHash(i);
+        Instant expiresAt = expiresAt(i);
+        Optional<RefreshTokenStore.TokenRecord> token = store.findToken(hash, expiresAt);
+        if (token.isEmpty() || store.findFamily(token.get().familyId(), expiresAt).isEmpty()) {
+            return false;
+        }
+        if (!store.markUsed(hash, expiresAt, Instant.now())) {
+            return store.revokeFamily(token.get().familyId(), expiresAt, Instant.now());
+        }
+        store.insertToken(tokenHash(sessions + cursor), token.get().familyId(), hash, expiresAt);
+        return true;
+    }
+
+    /**
+     * One expired day of tokens (sessions / DAYS rows), stored both as a day table and inside a
+     * single table that also holds the next, still live, day.
+     */
+    @State(Scope.Thread)
+    public static class ExpiredDay {
+
+        private JdbcTemplate jdbcTemplate;
+
+        @Setup(Level.Invocation)
+        public void setUp(RefreshTokenStoreBenchmark benchmark) {
+            jdbcTemplate = benchmark.jdbcTemplate;
+            int rows = benchmark.sessions / DAYS;
+            jdbcTemplate.execute("CREATE TABLE refresh_tokens_expired (token_hash BYTEA PRIMARY KEY, " +
+                    "family_id UUID NOT NULL, parent_hash BYTEA, expires_at BIGINT NOT NULL, used_at BIGINT)");
+            jdbcTemplate.execute("CREATE TABLE refresh_tokens_single (token_hash BYTEA PRIMARY KEY, " +
+                    "family_id UUID NOT NULL, parent_hash BYTEA, expires_at BIGINT NOT NULL, used_at BIGINT)");
+            jdbcTemplate.execute("CREATE INDEX refresh_tokens_single_expires_at ON refresh_tokens_single (expires_at)");
+            fill("refresh_tokens_expired", 0, rows, 1L);
+            fill("refresh_tokens_single", 0, rows, 1L);
+            fill("refresh_tokens_single", rows, 2 * rows, Long.MAX_VALUE);
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS refresh_tokens_expired");
+            jdbcTemplate.execute("DROP TABLE IF EXISTS refresh_tokens_single");
+        }
+
+        private void fill(String table, int from, int to, long expiresAt) {
+            List<Object[]> batch = new ArrayList<>(BATCH);
+            for (int i = from; i < to; i++) {
+                batch.add(new Object[]{tokenHash(-1 - i), familyId(i), expiresAt});
+                if (batch.size() == BATCH || i == to - 1) {
+                    jdbcTemplate.batchUpdate("INSERT INTO " + table +
+                            " (token_hash, family_id, expires_at) VALUES (?, ?, ?)", batch);
+                    batch.clear();
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public void purgeDropDayTable(ExpiredDay day) {
+        day.jdbcTemplate.execute("DROP TABLE refresh_tokens_expired");
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public int purgeDeleteRows(ExpiredDay day) {
+        return day.jdbcTemplate.update("DELETE FROM refresh_tokens_single WHERE expires_at < ?", 2L);
+    }
+
+    private void flush(String suffix, List<Object[]> families, List<Object[]> tokens) {
+        jdbcTemplate.batchUpdate("INSERT INTO " + RefreshTokenStore.FAMILIES_PREFIX + suffix +
+                " (family_id, subject, created_at, expires_at) VALUES (?, ?, ?, ?)", families);
+        jdbcTemplate.batchUpdate("INSERT INTO " + RefreshTokenStore.TOKENS_PREFIX + suffix +
+                " (token_hash, family_id, expires_at) VALUES (?, ?, ?)", tokens);
+        families.clear();
+        tokens.clear();
+    }
+
+    // Session i expires at noon on day 1 + i % DAYS, which is also the day its family expires.
+    private Instant expiresAt(int i) {
+        return today.plusDays(1 + i % DAYS).atTime(12, 0).toInstant(ZoneOffset.UTC);
+    }
+
+    private static UUID familyId(int i) {
+        return new UUID(0x5eed, i);
+    }
+
+    // Stands in for the truncated SHA-256 of a jti; the store treats hashes as opaque 16-byte keys.
+    private static byte[] tokenHash(int i) {
+        long h = i * 0x9e3779b97f4a7c15L;
+        return ByteBuffer.allocate(16).putLong(h ^ (h >>> 31)).putLong(i).array();
+    }
+}
@@ -0,0 +1,190 @@
+package com.springwarden.benchmarks;
+
+import com.springwarden.common.model.Role;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the two role storage layouts on an in-memory H2 database, issuing the same statements
+ * Hibernate does for findByEmail, findAll and findByEnabledTrue:
+ * legacy = users row + EAGER element collection in user_roles (one extra select per loaded user),
+ * compact = users row with a role_mask column decoded to an EnumSet (a single select).
+ * The "statements" aux counter reports SQL statements per operation next to the latency.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RoleStorageBenchmark {
+
+    private static final String LEGACY_USER_COLUMNS = "SELECT id, email, first_name, last_name, enabled FROM legacy_users";
+    private static final String COMPACT_USER_COLUMNS =
+            "SELECT id, email, first_name, last_name, enabled, role_mask FROM compact_users";
+
+    @Param({"1000"})
+    private int userCount;
+
+    private Connection connection;
+    private PreparedStatement legacyByEmail;
+    private PreparedStatement legacyAll;
+    private PreparedStatement legacyEnabled;
+    private PreparedStatement legacyRoles;
+    private PreparedStatement compactByEmail;
+    private PreparedStatement compactAll;
+    private PreparedStatement compactEnabled;
+    private String email;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class StatementCounter {
+        public long statements;
+    }
+
+    record Row(long id, String email, String firstName, String lastName, boolean enabled, Set<?> roles) {
+    }
+
+    @Setup
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:role-storage;DB_CLOSE_DELAY=-1");
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("CREATE TABLE legacy_users (id BIGINT PRIMARY KEY, email VARCHAR(255) UNIQUE, " +
+                    "first_name VARCHAR(255), last_name VARCHAR(255), enabled BOOLEAN)");
+            ddl.execute("CREATE TABLE user_roles (user_id BIGINT, role VARCHAR(32))");
+            ddl.execute("CREATE INDEX user_roles_user_id ON user_roles (user_id)");
+            ddl.execute("CREATE TABLE compact_users (id BIGINT PRIMARY KEY, email VARCHAR(255) UNIQUE, " +
+                    "first_name VARCHAR(255), last_name VARCHAR(255), enabled BOOLEAN, role_mask INT)");
+        }
+
+        try (PreparedStatement legacyUser = connection.prepareStatement("INSERT INTO legacy_users VALUES (?, ?, ?, ?, ?)");
+             PreparedStatement legacyRole = connection.prepareStatement("INSERT INTO user_roles VALUES (?, ?)");
+             PreparedStatement compactUser = connection.prepareStatement("INSERT INTO compact_users VALUES (?, ?, ?, ?, ?, ?)")) {
+            for (long id = 1; id <= userCount; id++) {
+                String userEmail = "user" + id + "@springwarden.com";
+                boolean enabled = id % 4 != 0;
+                // Every user has USER; every tenth is also MANAGER and every hundredth ADMIN.
+                EnumSet<Role> roles = EnumSet.of(Role.USER);
+                if (id % 10 == 0) {
+                    roles.add(Role.MANAGER);
+                }
+                if (id % 100 == 0) {
+                    roles.add(Role.ADMIN);
+                }
+
+                fillUser(legacyUser, id, userEmail, enabled);
+                legacyUser.addBatch();
+                for (Role role : roles) {
+                    legacyRole.setLong(1, id);
+                    legacyRole.setString(2, role.name());
+                    legacyRole.addBatch();
+                }
+                fillUser(compactUser, id, userEmail, enabled);
+                compactUser.setInt(6, Role.maskOf(roles.stream().map(Role::name).toList()));
+                compactUser.addBatch();
+            }
+            legacyUser.executeBatch();
+            legacyRole.executeBatch();
+            compactUser.executeBatch();
+        }
+
+        legacyByEmail = connection.prepareStatement(LEGACY_USER_COLUMNS + " WHERE email = ?");
+        legacyAll = connection.prepareStatement(LEGACY_USER_COLUMNS);
+        legacyEnabled = connection.prepareStatement(LEGACY_USER_COLUMNS + " WHERE enabled = TRUE");
+        legacyRoles = connection.prepareStatement("SELECT role FROM user_roles WHERE user_id = ?");
+        compactByEmail = connection.prepareStatement(COMPACT_USER_COLUMNS + " WHERE email = ?");
+        compactAll = connection.prepareStatement(COMPACT_USER_COLUMNS);
+        compactEnabled = connection.prepareStatement(COMPACT_USER_COLUMNS + " WHERE enabled = TRUE");
+        email = "user" + (userCount / 2) + "@springwarden.com";
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public List<Row> legacyFindByEmail(StatementCounter counter) throws SQLException {
+        legacyByEmail.setString(1, email);
+        return loadLegacy(legacyByEmail, counter);
+    }
+
+    @Benchmark
+    public List<Row> legacyFindAll(StatementCounter counter) throws SQLException {
+        return loadLegacy(legacyAll, counter);
+    }
+
+    @Benchmark
+    public List<Row> legacyFindByEnabledTrue(StatementCounter counter) throws SQLException {
+        return loadLegacy(legacyEnabled, counter);
+    }
+
+    @Benchmark
+    public List<Row> compactFindByEmail(StatementCounter counter) throws SQLException {
+        compactByEmail.setString(1, email);
+        return loadCompact(compactByEmail, counter);
+    }
+
+    @Benchmark
+    public List<Row> compactFindAll(StatementCounter counter) throws SQLException {
+        return loadCompact(compactAll, counter);
+    }
+
+    @Benchmark
+    public List<Row> compactFindByEnabledTrue(StatementCounter counter) throws SQLException {
+        return loadCompact(compactEnabled, counter);
+    }
+
+    private List<Row> loadLegacy(PreparedStatement query, StatementCounter counter) throws SQLException {
+        List<Row> rows = new ArrayList<>();
+        try (ResultSet rs = query.executeQuery()) {
+            counter.statements++;
+            while (rs.next()) {
+                long id = rs.getLong(1);
+                // The secondary select Hibernate issues for each loaded owner of an EAGER element collection.
+                Set<String> roles = new HashSet<>();
+                legacyRoles.setLong(1, id);
+                try (ResultSet roleRs = legacyRoles.executeQuery()) {
+                    counter.statements++;
+                    while (roleRs.next()) {
+                        roles.add(Role.valueOf(roleRs.getString(1)).name());
+                    }
+                }
+                rows.add(new Row(id, rs.getString(2), rs.getString(3), rs.getString(4), rs.getBoolean(5), roles));
+            }
+        }
+        return rows;
+    }
+
+    private List<Row> loadCompact(PreparedStatement query, StatementCounter counter) throws SQLException {
+        List<Row> rows = new ArrayList<>();
+        try (ResultSet rs = query.executeQuery()) {
+            counter.statements++;
+            while (rs.next()) {
+                rows.add(new Row(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getBoolean(5),
+                        Role.fromMask(rs.getInt(6))));
+            }
+        }
+        return rows;
+    }
+
+    private static void fillUser(PreparedStatement statement, long id, String email, boolean enabled) throws SQLException {
+        statement.setLong(1, id);
+        statement.setString(2, email);
+        statement.setString(3, "Bench");
+        statement.setString(4, "User" + id);
+        statement.setBoolean(5, enabled);
+    }
+}
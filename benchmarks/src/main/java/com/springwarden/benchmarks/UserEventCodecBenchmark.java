@@ -0,0 +1,91 @@
+package com.springwarden.benchmarks;
+
+import com.springwarden.common.dto.UserDto;
+import com.springwarden.common.event.UserEvent;
+import com.springwarden.common.event.UserEventDeserializer;
+import com.springwarden.common.event.UserEventSerializer;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the current JSON path on user-events (Spring's JsonSerializer/JsonDeserializer with
+ * type headers) against the compact binary UserEventCodec. Encoded sizes are printed at setup;
+ * run with the GC profiler (the default in BenchmarkRunner) for allocation per operation.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserEventCodecBenchmark {
+
+    private static final String TOPIC = "user-events";
+
+    @Param({"1", "4"})
+    private int roleCount;
+
+    private UserEvent event;
+    private JsonSerializer<Object> jsonSerializer;
+    private JsonDeserializer<Object> jsonDeserializer;
+    private UserEventSerializer binarySerializer;
+    private UserEventDeserializer binaryDeserializer;
+    private byte[] jsonBytes;
+    private RecordHeaders jsonHeaders;
+    private byte[] binaryBytes;
+
+    @Setup
+    public void setUp() {
+        String[] roles = {"USER", "MANAGER", "ADMIN", "VIEWER"};
+        event = new UserEvent("CREATED",
+                new UserDto(123_456L, BenchmarkFixtures.EMAIL, "Bench", "User",
+                        Set.of(Arrays.copyOf(roles, roleCount)), true),
+                System.currentTimeMillis());
+
+        jsonSerializer = new JsonSerializer<>();
+        jsonDeserializer = new JsonDeserializer<>();
+        jsonDeserializer.configure(Map.of(JsonDeserializer.TRUSTED_PACKAGES,
+                "com.springwarden.common.event,com.springwarden.common.dto"), false);
+        binarySerializer = new UserEventSerializer();
+        binaryDeserializer = new UserEventDeserializer();
+
+        jsonHeaders = new RecordHeaders();
+        jsonBytes = jsonSerializer.serialize(TOPIC, jsonHeaders, event);
+        binaryBytes = binarySerializer.serialize(TOPIC, event);
+
+        int headerBytes = 0;
+        for (Header header : jsonHeaders) {
+            headerBytes += header.key().length() + header.value().length;
+        }
+        System.out.printf("%n# Encoded UserEvent size (roles=%d): json=%d bytes + %d header bytes, binary=%d bytes%n",
+                roleCount, jsonBytes.length, headerBytes, binaryBytes.length);
+    }
+
+    @Benchmark
+    public byte[] jsonSerialize() {
+        return jsonSerializer.serialize(TOPIC, new RecordHeaders(), event);
+    }
+
+    @Benchmark
+    public Object jsonDeserialize() {
+        return jsonDeserializer.deserialize(TOPIC, jsonHeaders, jsonBytes);
+    }
+
+    @Benchmark
+    public byte[] binarySerialize() {
+        return binarySerializer.serialize(TOPIC, event);
+    }
+
+    @Benchmark
+    public Object binaryDeserialize() {
+        return binaryDeserializer.deserialize(TOPIC, binaryBytes);
+    }
+}
@@ -0,0 +1,107 @@
+package com.springwarden.common.diagnostics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Reports virtual threads that block while pinned to their carrier thread, e.g. inside a synchronized
+ * block in a JDBC driver or connection pool. A pinned thread holds one of the few carriers for the whole
+ * wait, so a handful of them can stall every request in virtual-thread mode.
+ * <p>
+ * Listens to the JDK's own jdk.VirtualThreadPinned JFR event in-process. Each pinning is recorded in
+ * the jvm.threads.virtual.pinned timer, tagged with the library frame that blocked ("site") and the
+ * first application frame above it ("caller"); the first occurrence of each pair is logged with its stack.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+    private static final String EVENT = "jdk.VirtualThreadPinned";
+    private static final String APPLICATION_PACKAGE = "com.springwarden.";
+    private static final int LOGGED_FRAMES = 12;
+
+    private final MeterRegistry meterRegistry;
+    private final Set<String> reported = ConcurrentHashMap.newKeySet();
+    private RecordingStream stream;
+
+    // Pinnings shorter than this are not recorded; the JDK default for the event is 20ms.
+    @Value("${diagnostics.pinning.threshold:PT0.02S}")
+    private Duration threshold;
+
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void start() {
+        stream = new RecordingStream();
+        stream.enable(EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(EVENT, this::onPinned);
+        stream.startAsync();
+        log.info("Reporting virtual thread pinning longer than {}", threshold);
+    }
+
+    @PreDestroy
+    void stop() {
+        stream.close();
+    }
+
+    private void onPinned(RecordedEvent event) {
+        List<RecordedFrame> frames = event.getStackTrace() != null ? event.getStackTrace().getFrames() : List.of();
+        String site = frames.stream()
+                .map(VirtualThreadPinningMonitor::typeName)
+                .filter(type -> !isPlatform(type))
+                .findFirst()
+                .orElse("unknown");
+        String caller = frames.stream()
+                .filter(frame -> typeName(frame).startsWith(APPLICATION_PACKAGE))
+                .findFirst()
+                .map(frame -> simpleName(typeName(frame)) + "." + frame.getMethod().getName())
+                .orElse("none");
+
+        Timer.builder("jvm.threads.virtual.pinned")
+                .description("Time virtual threads spent blocked while pinned to a carrier thread")
+                .tag("site", site)
+                .tag("caller", caller)
+                .register(meterRegistry)
+                .record(event.getDuration());
+
+        if (reported.add(site + "|" + caller)) {
+            log.warn("Virtual thread pinned for {} ms in {} (called from {}):\n{}", event.getDuration().toMillis(),
+                    site, caller, frames.stream()
+                            .limit(LOGGED_FRAMES)
+                            .map(frame -> "\tat " + typeName(frame) + "." + frame.getMethod().getName()
+                                    + ":" + frame.getLineNumber())
+                            .collect(Collectors.joining("\n")));
+        }
+    }
+
+    private static String typeName(RecordedFrame frame) {
+        return frame.getMethod().getType().getName();
+    }
+
+    private static boolean isPlatform(String type) {
+        return type.startsWith("java.") || type.startsWith("jdk.") || type.startsWith("sun.");
+    }
+
+    private static String simpleName(String type) {
+        return type.substring(type.lastIndexOf('.') + 1);
+    }
+}
@@ -0,0 +1,23 @@
+package com.springwarden.common.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.springwarden.common.util.JwtPrincipal;
+
+import java.util.Set;
+
+/**
+ * Per-token result of /auth/introspect. Valid tokens carry subject, roles, exp (epoch seconds) and jti;
+ * invalid ones only a reason: expired, revoked, invalid_signature, malformed, unsupported, invalid or empty.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TokenIntrospection(boolean valid, String subject, Set<String> roles, Long exp, String jti, String reason) {
+
+    public static TokenIntrospection valid(JwtPrincipal principal) {
+        Long exp = principal.expiresAt() != null ? principal.expiresAt().getEpochSecond() : null;
+        return new TokenIntrospection(true, principal.subject(), principal.roles(), exp, principal.tokenId(), null);
+    }
+
+    public static TokenIntrospection invalid(String reason) {
+        return new TokenIntrospection(false, null, null, null, null, reason);
+    }
+}
@@ -0,0 +1,5 @@
+package com.springwarden.common.dto;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+public record TokenIntrospectionRequest(@NotNull @Size(max = 10_000) List<String> tokens) {}
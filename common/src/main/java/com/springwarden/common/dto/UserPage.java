@@ -0,0 +1,6 @@
+package com.springwarden.common.dto;
+import java.util.List;
+/**
+ * One page of a keyset-paginated user listing. Pass nextCursor as afterId to fetch the next page; null means last page.
+ */
+public record UserPage(List<UserDto> users, Long nextCursor) {}
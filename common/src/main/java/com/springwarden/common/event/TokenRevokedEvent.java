@@ -0,0 +1,7 @@
+package com.springwarden.common.event;
+
+/**
+ * Published on token-revocations when a token is revoked. Keyed by tokenId.
+ * expiresAt is the revoked token's own exp (epoch millis); the revocation is irrelevant after it.
+ */
+public record TokenRevokedEvent(String tokenId, long expiresAt) {}
@@ -0,0 +1,188 @@
+package com.springwarden.common.event;
+
+import com.springwarden.common.dto.UserDto;
+import com.springwarden.common.model.Role;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Compact binary encoding of {@link UserEvent}, as an alternative to JSON on the user-events topic.
+ * <p>
+ * Layout (version 1), varints are unsigned LEB128:
+ * <pre>
+ * byte    version (1)
+ * byte    event type: 1 CREATED, 2 UPDATED, 3 DELETED, 0 other (followed by the type as a string)
+ * byte    flags: bit 0 enabled, bit 1 user id present, bit 2 user present
+ * varlong timestamp
+ * -- the rest only if flag bit 2 --
+ * varlong user id (only if flag bit 1)
+ * string  email, firstName, lastName   (varint length + 1, 0 meaning null, then UTF-8 bytes)
+ * varint  role bitmask ({@link Role#bit()})
+ * varint  count of roles not in the Role enum, then each as a string
+ * </pre>
+ * The first byte of a JSON payload is always '{', which can never be a version byte, so readers can
+ * tell the two formats apart during a rolling migration.
+ */
+public final class UserEventCodec {
+
+    public static final byte VERSION = 1;
+
+    private static final String[] EVENT_TYPES = {null, "CREATED", "UPDATED", "DELETED"};
+
+    private UserEventCodec() {}
+
+    public static byte[] encode(UserEvent event) {
+        Writer out = new Writer();
+        UserDto user = event.user();
+        out.writeByte(VERSION);
+        int typeCode = typeCode(event.eventType());
+        out.writeByte(typeCode);
+        if (typeCode == 0) {
+            out.writeString(event.eventType());
+        }
+        int flags = user == null ? 0 : (user.enabled() ? 1 : 0) | (user.id() != null ? 2 : 0) | 4;
+        out.writeByte(flags);
+        out.writeVarLong(event.timestamp());
+        if (user == null) {
+            return out.toByteArray();
+        }
+        if (user.id() != null) {
+            out.writeVarLong(user.id());
+        }
+        out.writeString(user.email());
+        out.writeString(user.firstName());
+        out.writeString(user.lastName());
+
+        Set<String> roles = user.roles() == null ? Set.of() : user.roles();
+        int mask = Role.maskOf(roles);
+        out.writeVarLong(mask);
+        int unknown = roles.size() - Integer.bitCount(mask);
+        out.writeVarLong(unknown);
+        if (unknown > 0) {
+            for (String role : roles) {
+                if (Role.maskOf(Set.of(role)) == 0) {
+                    out.writeString(role);
+                }
+            }
+        }
+        return out.toByteArray();
+    }
+
+    public static UserEvent decode(byte[] data) {
+        Reader in = new Reader(data);
+        int version = in.readByte();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported UserEvent encoding version: " + version);
+        }
+        int typeCode = in.readByte();
+        String eventType = typeCode == 0 ? in.readString() : EVENT_TYPES[typeCode];
+        int flags = in.readByte();
+        long timestamp = in.readVarLong();
+        if ((flags & 4) == 0) {
+            return new UserEvent(eventType, null, timestamp);
+        }
+        Long id = (flags & 2) != 0 ? in.readVarLong() : null;
+        String email = in.readString();
+        String firstName = in.readString();
+        String lastName = in.readString();
+
+        Set<String> roles = new HashSet<>();
+        for (Role role : Role.fromMask((int) in.readVarLong())) {
+            roles.add(role.name());
+        }
+        long unknown = in.readVarLong();
+        for (long i = 0; i < unknown; i++) {
+            roles.add(in.readString());
+        }
+        return new UserEvent(eventType, new UserDto(id, email, firstName, lastName, roles, (flags & 1) != 0), timestamp);
+    }
+
+    private static int typeCode(String eventType) {
+        for (int i = 1; i < EVENT_TYPES.length; i++) {
+            if (EVENT_TYPES[i].equals(eventType)) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    private static final class Writer {
+        private byte[] buffer = new byte[64];
+        private int position;
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[position++] = (byte) value;
+        }
+
+        void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length + 1L);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (position + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+            }
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] data;
+        private int position;
+
+        Reader(byte[] data) {
+            this.data = data;
+        }
+
+        int readByte() {
+            return data[position++] & 0xFF;
+        }
+
+        long readVarLong() {
+            long result = 0;
+            int shift = 0;
+            while (true) {
+                byte b = data[position++];
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+                shift += 7;
+            }
+        }
+
+        String readString() {
+            long length = readVarLong();
+            if (length == 0) {
+                return null;
+            }
+            String value = new String(data, position, (int) length - 1, StandardCharsets.UTF_8);
+            position += (int) length - 1;
+            return value;
+        }
+    }
+}
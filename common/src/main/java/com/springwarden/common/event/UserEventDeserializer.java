@@ -0,0 +1,55 @@
+package com.springwarden.common.event;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.mapping.AbstractJavaTypeMapper;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.io.IOException;
+
+/**
+ * Kafka value deserializer for {@link UserEventCodec} binary. Selected with user-events.codec=binary.
+ * Records still in JSON (written before the producer switched codecs) are recognised by their
+ * leading '{' and read with Jackson, so consumers can be switched first. JSON records carrying
+ * a type header (other payloads such as TokenRevokedEvent) are read as that type.
+ */
+public class UserEventDeserializer implements Deserializer<Object> {
+
+    private static final ObjectMapper JSON = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final JsonDeserializer<Object> typed = new JsonDeserializer<>(Object.class)
+            .trustedPackages("com.springwarden.common.event", "com.springwarden.common.dto");
+
+    @Override
+    public Object deserialize(String topic, Headers headers, byte[] data) {
+        if (data != null && data.length > 0 && data[0] == '{'
+                && headers != null && headers.lastHeader(AbstractJavaTypeMapper.DEFAULT_CLASSID_FIELD_NAME) != null) {
+            return typed.deserialize(topic, headers, data);
+        }
+        return deserialize(topic, data);
+    }
+
+    @Override
+    public Object deserialize(String topic, byte[] data) {
+        if (data == null || data.length == 0) {
+            return null;
+        }
+        try {
+            if (data[0] == '{') {
+                return JSON.readValue(data, UserEvent.class);
+            }
+            return UserEventCodec.decode(data);
+        } catch (IOException | RuntimeException e) {
+            throw new SerializationException("Failed to deserialize UserEvent from topic " + topic, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        typed.close();
+    }
+}
@@ -0,0 +1,35 @@
+package com.springwarden.common.event;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+/**
+ * Kafka value serializer writing {@link UserEventCodec} binary. Selected with user-events.codec=binary.
+ * Other payloads sharing the producer (e.g. TokenRevokedEvent) are written as JSON with type headers.
+ */
+public class UserEventSerializer implements Serializer<Object> {
+
+    private final JsonSerializer<Object> json = new JsonSerializer<>();
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        return serialize(topic, null, data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, Object data) {
+        if (data == null) {
+            return null;
+        }
+        if (data instanceof UserEvent event) {
+            return UserEventCodec.encode(event);
+        }
+        return headers != null ? json.serialize(topic, headers, data) : json.serialize(topic, data);
+    }
+
+    @Override
+    public void close() {
+        json.close();
+    }
+}
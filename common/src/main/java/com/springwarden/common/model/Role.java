@@ -1,2 +1,43 @@
 package com.springwarden.common.model;
-public enum Role { ADMIN, USER, MANAGER, VIEWER }
\ No newline at end of file
+
+import java.util.EnumSet;
+
+public enum Role {
+    ADMIN, USER, MANAGER, VIEWER;
+
+    // values() clones the array on every call; mask conversion runs per request.
+    private static final Role[] VALUES = values();
+
+    /**
+     * @return This role's bit in a role bitmask. Bits follow declaration order, so new roles must be appended.
+     */
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    /**
+     * Builds a bitmask from role names, e.g. the roles claim of a token. Unknown names are ignored.
+     */
+    public static int maskOf(Iterable<String> roleNames) {
+        int mask = 0;
+        for (String name : roleNames) {
+            for (Role role : VALUES) {
+                if (role.name().equals(name)) {
+                    mask |= role.bit();
+                    break;
+                }
+            }
+        }
+        return mask;
+    }
+
+    public static EnumSet<Role> fromMask(int mask) {
+        EnumSet<Role> roles = EnumSet.noneOf(Role.class);
+        for (Role role : VALUES) {
+            if ((mask & role.bit()) != 0) {
+                roles.add(role);
+            }
+        }
+        return roles;
+    }
+}
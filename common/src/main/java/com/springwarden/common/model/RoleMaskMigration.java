@@ -0,0 +1,68 @@
+package com.springwarden.common.model;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * One-time backfill from a legacy role join table into an entity table's role_mask column.
+ * Only rows whose mask is still NULL are touched, so it is safe to run on every startup and
+ * new writes are never overwritten. The legacy table is left in place for rollback.
+ * <p>
+ * Runs once every singleton, including the JPA EntityManagerFactory (and with it ddl-auto), has been
+ * created, but before the web server and Kafka listeners start. Nothing can load and re-save an
+ * unmigrated row first: RoleSetConverter reads a NULL mask as no roles and would write it back as 0,
+ * which this backfill would then skip.
+ */
+public class RoleMaskMigration implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(RoleMaskMigration.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String table;
+    private final String legacyTable;
+    private final String legacyForeignKey;
+    private final boolean enabled;
+
+    /**
+     * @param table            Entity table holding the role_mask column, e.g. users.
+     * @param legacyTable      Join table with one (foreign key, role name) row per role, e.g. user_roles.
+     * @param legacyForeignKey Column of legacyTable referencing table's id, e.g. user_id.
+     */
+    public RoleMaskMigration(JdbcTemplate jdbcTemplate, String table, String legacyTable, String legacyForeignKey,
+                             boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.table = table;
+        this.legacyTable = legacyTable;
+        this.legacyForeignKey = legacyForeignKey;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled || !legacyTableExists()) {
+            return;
+        }
+        // e.g. CASE r.role WHEN 'ADMIN' THEN 1 WHEN 'USER' THEN 2 ... END, derived from Role so bits always match.
+        String bitOf = Arrays.stream(Role.values())
+                .map(role -> "WHEN '" + role.name() + "' THEN " + role.bit())
+                .collect(Collectors.joining(" ", "CASE r.role ", " ELSE 0 END"));
+        int migrated = jdbcTemplate.update(
+                "UPDATE " + table + " u SET role_mask = (SELECT COALESCE(SUM(" + bitOf + "), 0) " +
+                "FROM " + legacyTable + " r WHERE r." + legacyForeignKey + " = u.id) WHERE u.role_mask IS NULL");
+        if (migrated > 0) {
+            log.info("Migrated roles of {} row(s) from {} to {}.role_mask", migrated, legacyTable, table);
+        }
+    }
+
+    private boolean legacyTableExists() {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.tables WHERE LOWER(table_name) = ?", Integer.class,
+                legacyTable.toLowerCase());
+        return count != null && count > 0;
+    }
+}
@@ -0,0 +1,32 @@
+package com.springwarden.common.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Stores a role set as a single integer bitmask column ({@link Role#bit()}) instead of a join table,
+ * so loading an entity never needs a second query for its roles. Reads come back as an EnumSet.
+ */
+@Converter
+public class RoleSetConverter implements AttributeConverter<Set<Role>, Integer> {
+
+    @Override
+    public Integer convertToDatabaseColumn(Set<Role> roles) {
+        int mask = 0;
+        if (roles != null) {
+            for (Role role : roles) {
+                mask |= role.bit();
+            }
+        }
+        return mask;
+    }
+
+    @Override
+    public Set<Role> convertToEntityAttribute(Integer mask) {
+        // NULL only appears on rows created before the column existed and not yet migrated.
+        return mask == null ? EnumSet.noneOf(Role.class) : Role.fromMask(mask);
+    }
+}
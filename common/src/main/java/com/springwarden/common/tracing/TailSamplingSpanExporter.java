@@ -0,0 +1,190 @@
+package com.springwarden.common.tracing;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tail-based sampling in front of a span exporter. Every request is traced, but spans are held per trace
+ * until the trace's local root span ends in this service; the whole local part of the trace is then
+ * exported or dropped. It is kept if any span failed, if the local root took at least slowThreshold, or
+ * for a baseline fraction of the remaining traces, so normal traffic stays visible next to the outliers.
+ * The baseline is chosen from the trace id, as OpenTelemetry's TraceIdRatioBased sampler does, so every
+ * service keeps the same baseline traces and they are complete end to end.
+ * <p>
+ * Decisions are made per service, on the part of the trace that ran here. A trace can have several local
+ * roots in one service (the registration request and, later, the outbox relay publishing its event), so
+ * only "keep" is remembered: later spans of a kept trace are exported straight away, anything else is
+ * buffered and decided on its own. Spans whose local root never shows up are decided after decisionWait.
+ * <p>
+ * Runs on the BatchSpanProcessor's export thread, off the request path.
+ */
+public class TailSamplingSpanExporter implements SpanExporter {
+
+    private static final AttributeKey<String> OUTCOME = AttributeKey.stringKey("outcome");
+    private static final int KEPT_TRACES = 10_000;
+
+    private final SpanExporter delegate;
+    private final long slowThresholdNanos;
+    private final long baselineBound;
+    private final int maxPendingTraces;
+    private final long decisionWaitNanos;
+    // Insertion ordered, so expiry only has to look at the oldest entries.
+    private final Map<String, PendingTrace> pending = new LinkedHashMap<>();
+    private final Map<String, Boolean> kept = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > KEPT_TRACES;
+        }
+    };
+    private final Counter keptError;
+    private final Counter keptSlow;
+    private final Counter keptBaseline;
+    private final Counter dropped;
+    private final Counter overflow;
+
+    public TailSamplingSpanExporter(SpanExporter delegate, Duration slowThreshold, double baselineRatio,
+                                    int maxPendingTraces, Duration decisionWait, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.baselineBound = (long) (baselineRatio * Long.MAX_VALUE);
+        this.maxPendingTraces = maxPendingTraces;
+        this.decisionWaitNanos = decisionWait.toNanos();
+        this.keptError = decisionCounter(meterRegistry, "kept_error");
+        this.keptSlow = decisionCounter(meterRegistry, "kept_slow");
+        this.keptBaseline = decisionCounter(meterRegistry, "kept_baseline");
+        this.dropped = decisionCounter(meterRegistry, "dropped");
+        this.overflow = Counter.builder("tracing.tail-sampling.overflow")
+                .description("Spans dropped undecided because too many traces were pending")
+                .register(meterRegistry);
+    }
+
+    private static Counter decisionCounter(MeterRegistry meterRegistry, String decision) {
+        return Counter.builder("tracing.tail-sampling.traces")
+                .description("Local traces by tail-sampling decision")
+                .tag("decision", decision)
+                .register(meterRegistry);
+    }
+
+    public SpanExporter getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public synchronized CompletableResultCode export(Collection<SpanData> spans) {
+        long now = System.nanoTime();
+        List<SpanData> export = new ArrayList<>();
+        for (SpanData span : spans) {
+            String traceId = span.getTraceId();
+            if (kept.containsKey(traceId)) {
+                export.add(span);
+                continue;
+            }
+            PendingTrace trace = pending.get(traceId);
+            if (trace == null) {
+                if (pending.size() >= maxPendingTraces) {
+                    overflow.increment();
+                    continue;
+                }
+                trace = new PendingTrace(now);
+                pending.put(traceId, trace);
+            }
+            trace.spans.add(span);
+            trace.failed |= failed(span);
+            if (isLocalRoot(span)) {
+                pending.remove(traceId);
+                decide(traceId, trace, span.getEndEpochNanos() - span.getStartEpochNanos(), export);
+            }
+        }
+
+        Iterator<Map.Entry<String, PendingTrace>> oldest = pending.entrySet().iterator();
+        while (oldest.hasNext()) {
+            Map.Entry<String, PendingTrace> entry = oldest.next();
+            if (now - entry.getValue().firstSeen < decisionWaitNanos) {
+                break;
+            }
+            oldest.remove();
+            decide(entry.getKey(), entry.getValue(), 0, export);
+        }
+        return export.isEmpty() ? CompletableResultCode.ofSuccess() : delegate.export(export);
+    }
+
+    private void decide(String traceId, PendingTrace trace, long rootNanos, List<SpanData> export) {
+        Counter decision;
+        if (trace.failed) {
+            decision = keptError;
+        } else if (rootNanos > 0 && rootNanos >= slowThresholdNanos) {
+            decision = keptSlow;
+        } else if (inBaseline(traceId)) {
+            decision = keptBaseline;
+        } else {
+            dropped.increment();
+            return;
+        }
+        decision.increment();
+        kept.put(traceId, Boolean.TRUE);
+        export.addAll(trace.spans);
+    }
+
+    // The low 64 bits of a W3C trace id are random, so comparing them to a bound picks a fixed fraction.
+    private boolean inBaseline(String traceId) {
+        long randomPart = Long.parseUnsignedLong(traceId.substring(traceId.length() - 16), 16);
+        return Math.abs(randomPart) < baselineBound;
+    }
+
+    private static boolean failed(SpanData span) {
+        return span.getStatus().getStatusCode() == StatusCode.ERROR
+                || "SERVER_ERROR".equals(span.getAttributes().get(OUTCOME));
+    }
+
+    // The first span of the trace in this service: no parent, or a parent that arrived over HTTP or Kafka.
+    private static boolean isLocalRoot(SpanData span) {
+        SpanContext parent = span.getParentSpanContext();
+        return !parent.isValid() || parent.isRemote();
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return delegate.flush();
+    }
+
+    /**
+     * Decides everything still pending, so failed and baseline traces are not lost on shutdown.
+     */
+    @Override
+    public CompletableResultCode shutdown() {
+        List<SpanData> export = new ArrayList<>();
+        synchronized (this) {
+            pending.forEach((traceId, trace) -> decide(traceId, trace, 0, export));
+            pending.clear();
+        }
+        if (!export.isEmpty()) {
+            delegate.export(export).join(10, TimeUnit.SECONDS);
+        }
+        return delegate.shutdown();
+    }
+
+    private static final class PendingTrace {
+        private final long firstSeen;
+        private final List<SpanData> spans = new ArrayList<>();
+        private boolean failed;
+
+        private PendingTrace(long firstSeen) {
+            this.firstSeen = firstSeen;
+        }
+    }
+}
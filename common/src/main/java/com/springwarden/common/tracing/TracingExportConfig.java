@@ -0,0 +1,57 @@
+package com.springwarden.common.tracing;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Span export for the services sharing this module. Boot's tracing auto-configuration passes every
+ * SpanExporter bean to its BatchSpanProcessor, so the tail sampler is the only exporter bean and the
+ * real target (tracing.export.target: memory or file) sits behind it. Without a target nothing is
+ * exported, but trace context is still created and propagated, and trace ids still appear in the logs.
+ */
+@Configuration
+@ConditionalOnProperty(name = "tracing.export.target")
+public class TracingExportConfig {
+
+    @Value("${tracing.export.target}")
+    private String target;
+
+    @Value("${tracing.export.file:traces/${spring.application.name:app}.jsonl}")
+    private Path file;
+
+    @Value("${tracing.export.memory-capacity:10000}")
+    private int memoryCapacity;
+
+    // Local traces whose root takes at least this long are kept. Failed ones always are.
+    @Value("${tracing.tail-sampling.slow-threshold:PT0.5S}")
+    private Duration slowThreshold;
+
+    // Fraction of the remaining, fast and successful, traces that is kept as a baseline.
+    @Value("${tracing.tail-sampling.baseline-ratio:0.01}")
+    private double baselineRatio;
+
+    @Value("${tracing.tail-sampling.max-pending-traces:10000}")
+    private int maxPendingTraces;
+
+    @Value("${tracing.tail-sampling.decision-wait:PT30S}")
+    private Duration decisionWait;
+
+    @Bean
+    public TailSamplingSpanExporter tailSamplingSpanExporter(MeterRegistry meterRegistry) {
+        SpanExporter delegate = switch (target) {
+            case "memory" -> new InMemorySpanExporter(memoryCapacity);
+            case "file" -> new FileSpanExporter(file);
+            default -> throw new IllegalStateException(
+                    "Unknown tracing.export.target '" + target + "'; expected memory or file");
+        };
+        return new TailSamplingSpanExporter(delegate, slowThreshold, baselineRatio, maxPendingTraces,
+                decisionWait, meterRegistry);
+    }
+}
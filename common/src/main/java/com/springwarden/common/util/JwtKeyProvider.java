@@ -0,0 +1,26 @@
+package com.springwarden.common.util;
+
+import java.security.PrivateKey;
+import java.security.PublicKey;
+
+/**
+ * Source of asymmetric keys for JwtUtil.
+ * When a bean of this type is present, tokens are signed with the current private key (tagged
+ * with its kid) and verified by looking up the public key named in the token header. Without one,
+ * JwtUtil falls back to the shared HS256 secret.
+ */
+public interface JwtKeyProvider {
+
+    /**
+     * @return The key new tokens are signed with, or null if this service only verifies tokens.
+     */
+    SigningKey currentSigningKey();
+
+    /**
+     * @param keyId The kid header of the token being verified.
+     * @return The matching public key, or null if the kid is unknown.
+     */
+    PublicKey verificationKey(String keyId);
+
+    record SigningKey(String keyId, PrivateKey privateKey) {}
+}
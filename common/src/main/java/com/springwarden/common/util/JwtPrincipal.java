@@ -0,0 +1,23 @@
+package com.springwarden.common.util;
+
+import com.springwarden.common.model.Role;
+
+import java.time.Instant;
+import java.util.Set;
+
+/**
+ * Immutable result of a single successful JWT verification.
+ * Everything the gateway and auth-service need is read from one parse.
+ * The roleMask holds the same roles as {@link Role} bits, for allocation-free authorization checks.
+ * The tokenId is the jti claim, used for revocation; it is null for tokens issued before jti existed.
+ */
+public record JwtPrincipal(String subject, Set<String> roles, int roleMask, Instant expiresAt, String tokenId) {
+
+    public JwtPrincipal {
+        roles = roles == null ? Set.of() : Set.copyOf(roles);
+    }
+
+    public JwtPrincipal(String subject, Set<String> roles, Instant expiresAt, String tokenId) {
+        this(subject, roles, Role.maskOf(roles == null ? Set.of() : roles), expiresAt, tokenId);
+    }
+}
@@ -1,18 +1,29 @@
 // common/src/main/java/com/springwarden/common/util/JwtUtil.java
 package com.springwarden.common.util;
 
+import com.springwarden.common.dto.TokenIntrospection;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.security.Key;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.Date;
-import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -20,6 +31,12 @@ import java.util.stream.Collectors;
 public class JwtUtil {
     private static final Logger log = LoggerFactory.getLogger(JwtUtil.class);
 
+    public static final String FAMILY_ID_CLAIM = "fid";
+    public static final String FAMILY_EXPIRES_AT_CLAIM = "fexp";
+    // Marks refresh tokens, so an access token can never be presented in their place.
+    public static final String TOKEN_TYPE_CLAIM = "typ";
+    public static final String REFRESH_TOKEN_TYPE = "refresh";
+
     // IMPORTANT: This default key is for development ONLY.
     // In production, use a strong, environment-specific secret.
     @Value("${jwt.secret:Zm9vYmFyZm9vYmFyZm9vYmFyZm9vYmFyZm9vYmFyZm9vYmFyZm9vYmFyZm9vYmFy}") // Base64 encoded
@@ -31,9 +48,46 @@ public class JwtUtil {
     @Value("${jwt.refresh-expiration:86400000}") // 24 hours
     private long refreshExpiration;
 
-    private SecretKey getSigningKey() {
+    // Present only when jwt.algorithm selects asymmetric signing (ES256/EdDSA).
+    @Autowired(required = false)
+    private JwtKeyProvider keyProvider;
+
+    // Absent when the util is built outside a Spring context; the global registry then makes timing a no-op.
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    // Decoded once at startup. Both are immutable and thread-safe, so they are shared by every request.
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    private Timer signTimer;
+    private Timer verifiedTimer;
+    private Timer rejectedTimer;
+
+    @PostConstruct
+    void init() {
+        MeterRegistry registry = meterRegistry != null ? meterRegistry : Metrics.globalRegistry;
+        this.signTimer = Timer.builder("jwt.sign")
+                .description("Time to build and sign a token")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.verifiedTimer = verifyTimer(registry, "valid");
+        this.rejectedTimer = verifyTimer(registry, "invalid");
+
         byte[] keyBytes = Decoders.BASE64.decode(secret);
-        return Keys.hmacShaKeyFor(keyBytes);
+        this.signingKey = Keys.hmacShaKeyFor(keyBytes);
+        if (keyProvider == null) {
+            this.parser = Jwts.parser().verifyWith(signingKey).build();
+        } else {
+            // The kid header selects the public key, so rotated keys verify without a restart.
+            this.parser = Jwts.parser().keyLocator(new LocatorAdapter<Key>() {
+                @Override
+                protected Key locate(JwsHeader header) {
+                    String keyId = header.getKeyId();
+                    return keyId != null ? keyProvider.verificationKey(keyId) : null;
+                }
+            }).build();
+        }
     }
 
     public String generateAccessToken(String email, Set<String> roles) {
@@ -41,24 +95,114 @@ public class JwtUtil {
     }
 
     public String generateRefreshToken(String email) {
-        return Jwts.builder()
+        return sign(Jwts.builder()
+                .id(UUID.randomUUID().toString())
                 .subject(email)
+                .claim(TOKEN_TYPE_CLAIM, REFRESH_TOKEN_TYPE)
                 .issuedAt(new Date())
-                .expiration(new Date(System.currentTimeMillis() + refreshExpiration))
-                .signWith(getSigningKey(), Jwts.SIG.HS256)
-                .compact();
+                .expiration(new Date(System.currentTimeMillis() + refreshExpiration)));
+    }
+
+    /**
+     * Refresh token belonging to a rotation family (see auth-service's RefreshTokenService).
+     * The fid and fexp claims name the family and its absolute expiry, so the store can find both in O(1).
+     */
+    public String generateRefreshToken(String email, String tokenId, String familyId,
+                                       Instant familyExpiresAt, Instant expiresAt) {
+        return sign(Jwts.builder()
+                .id(tokenId)
+                .subject(email)
+                .claim(FAMILY_ID_CLAIM, familyId)
+                .claim(FAMILY_EXPIRES_AT_CLAIM, familyExpiresAt.getEpochSecond())
+                .claim(TOKEN_TYPE_CLAIM, REFRESH_TOKEN_TYPE)
+                .issuedAt(new Date())
+                .expiration(Date.from(expiresAt)));
     }
 
     private String createToken(String email, Set<String> roles, long expiration) {
-        return Jwts.builder()
+        return sign(Jwts.builder()
+                .id(UUID.randomUUID().toString())
                 .subject(email)
                 .claim("roles", roles)
                 .issuedAt(new Date())
-                .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), Jwts.SIG.HS256)
+                .expiration(new Date(System.currentTimeMillis() + expiration)));
+    }
+
+    private static Timer verifyTimer(MeterRegistry registry, String result) {
+        return Timer.builder("jwt.verify")
+                .description("Time to parse and verify a token")
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private String sign(JwtBuilder builder) {
+        long start = System.nanoTime();
+        try {
+            return signWithCurrentKey(builder);
+        } finally {
+            signTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private String signWithCurrentKey(JwtBuilder builder) {
+        if (keyProvider == null) {
+            return builder.signWith(signingKey, Jwts.SIG.HS256).compact();
+        }
+        JwtKeyProvider.SigningKey key = keyProvider.currentSigningKey();
+        if (key == null) {
+            throw new IllegalStateException("No signing key available; this service can only verify tokens.");
+        }
+        // The algorithm (ES256 or EdDSA) is derived from the private key type.
+        return builder.header().keyId(key.keyId()).and()
+                .signWith(key.privateKey())
                 .compact();
     }
 
+    /**
+     * Verifies the signature and expiry of a token with a single parse.
+     * @param token The compact JWT string.
+     * @return The verified principal, or empty if the token is malformed, tampered with or expired.
+     */
+    public Optional<JwtPrincipal> verify(String token) {
+        long start = System.nanoTime();
+        try {
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            Optional<JwtPrincipal> principal = Optional.of(toPrincipal(claims));
+            verifiedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return principal;
+        } catch (JwtException | IllegalArgumentException e) {
+            rejectedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            // Invalid tokens are client input, not a server fault; logging them at ERROR lets a
+            // flood of bad tokens turn into synchronous appender I/O on the caller's thread.
+            log.debug("Invalid JWT token: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Like {@link #verify(String)}, but also says why a token was rejected. Used for introspection,
+     * where callers need the reason; the gateway hot path keeps using verify.
+     */
+    public TokenIntrospection introspect(String token) {
+        if (token == null || token.isBlank()) {
+            return TokenIntrospection.invalid("empty");
+        }
+        try {
+            return TokenIntrospection.valid(toPrincipal(parser.parseSignedClaims(token).getPayload()));
+        } catch (ExpiredJwtException e) {
+            return TokenIntrospection.invalid("expired");
+        } catch (io.jsonwebtoken.security.SecurityException e) {
+            return TokenIntrospection.invalid("invalid_signature");
+        } catch (MalformedJwtException e) {
+            return TokenIntrospection.invalid("malformed");
+        } catch (UnsupportedJwtException e) {
+            return TokenIntrospection.invalid("unsupported");
+        } catch (JwtException | IllegalArgumentException e) {
+            return TokenIntrospection.invalid("invalid");
+        }
+    }
+
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
@@ -67,15 +211,8 @@ public class JwtUtil {
         return extractClaim(token, Claims::getExpiration);
     }
 
-    @SuppressWarnings("unchecked")
     public Set<String> extractRoles(String token) {
-        final Claims claims = extractAllClaims(token);
-        // FIX: The JWT library often deserializes this as a List. Convert it safely.
-        List<String> rolesList = claims.get("roles", List.class);
-        if (rolesList == null) {
-            return Set.of();
-        }
-        return rolesList.stream().collect(Collectors.toSet());
+        return readRoles(extractAllClaims(token));
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
@@ -84,28 +221,30 @@ public class JwtUtil {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return parser.parseSignedClaims(token).getPayload();
     }
 
-    private boolean isTokenExpired(String token) {
-        try {
-            return extractExpiration(token).before(new Date());
-        } catch (ExpiredJwtException e) {
-            return true;
+    private JwtPrincipal toPrincipal(Claims claims) {
+        Date expiration = claims.getExpiration();
+        return new JwtPrincipal(
+                claims.getSubject(),
+                readRoles(claims),
+                expiration != null ? expiration.toInstant() : null,
+                claims.getId()
+        );
+    }
+
+    private Set<String> readRoles(Claims claims) {
+        // FIX: The JWT library often deserializes this as a List. Convert it safely.
+        Object roles = claims.get("roles");
+        if (!(roles instanceof Collection<?> rolesList)) {
+            return Set.of();
         }
+        return rolesList.stream().map(String::valueOf).collect(Collectors.toSet());
     }
 
     public boolean validateToken(String token) {
-        try {
-            Jwts.parser().verifyWith(getSigningKey()).build().parse(token);
-            return !isTokenExpired(token);
-        } catch (JwtException | IllegalArgumentException e) {
-            log.error("Invalid JWT token: {}", e.getMessage());
-            return false;
-        }
+        // The parser rejects expired tokens itself, so one parse covers both signature and expiry.
+        return verify(token).isPresent();
     }
-}
\ No newline at end of file
+}
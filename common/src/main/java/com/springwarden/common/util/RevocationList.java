@@ -0,0 +1,130 @@
+package com.springwarden.common.util;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory set of revoked token ids (jti) with a Bloom filter in front of it.
+ * <p>
+ * Almost every token checked is not revoked, and for those {@link #isRevoked(String)} only probes
+ * a few bits of the filter, with no allocation. The exact map is consulted only on a filter hit,
+ * which removes the false positives. Entries are kept until the token's own exp, after which the
+ * token is rejected anyway; {@link #purgeExpired()} drops them and rebuilds the filter, since
+ * a Bloom filter can't remove entries.
+ * <p>
+ * Reads are lock-free. Adds and rebuilds are serialized, which is fine because revocations are rare.
+ */
+public class RevocationList {
+
+    private final int expectedInsertions;
+    private final double falsePositiveRate;
+    private final Map<String, Long> expiresAtMillis = new ConcurrentHashMap<>();
+    private volatile Filter filter;
+
+    /**
+     * @param expectedInsertions Live revocations the filter is sized for; it grows on rebuild if exceeded.
+     * @param falsePositiveRate  Target rate of filter hits that fall through to the exact lookup.
+     */
+    public RevocationList(int expectedInsertions, double falsePositiveRate) {
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new Filter(expectedInsertions, falsePositiveRate);
+    }
+
+    /**
+     * @return true if the token id was revoked and the revocation has not expired yet.
+     */
+    public boolean isRevoked(String tokenId) {
+        if (tokenId == null || !filter.mightContain(tokenId)) {
+            return false;
+        }
+        Long expiresAt = expiresAtMillis.get(tokenId);
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+
+    public synchronized void add(String tokenId, Instant expiresAt) {
+        if (expiresAt.toEpochMilli() <= System.currentTimeMillis()) {
+            return;
+        }
+        expiresAtMillis.merge(tokenId, expiresAt.toEpochMilli(), Math::max);
+        filter.put(tokenId);
+    }
+
+    public int size() {
+        return expiresAtMillis.size();
+    }
+
+    /**
+     * Drops revocations whose token has expired and rebuilds the filter from what is left.
+     */
+    public synchronized void purgeExpired() {
+        long now = System.currentTimeMillis();
+        expiresAtMillis.values().removeIf(expiresAt -> expiresAt <= now);
+        Filter rebuilt = new Filter(Math.max(expectedInsertions, expiresAtMillis.size() * 2), falsePositiveRate);
+        expiresAtMillis.keySet().forEach(rebuilt::put);
+        filter = rebuilt;
+    }
+
+    /**
+     * Standard Bloom filter with k probes derived from two 32-bit hashes (Kirsch-Mitzenmacher).
+     */
+    private static final class Filter {
+
+        private final AtomicLongArray words;
+        private final int bits;
+        private final int probes;
+
+        Filter(int expectedInsertions, double falsePositiveRate) {
+            int n = Math.max(1, expectedInsertions);
+            long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.bits = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, m));
+            this.probes = Math.max(1, (int) Math.round((double) bits / n * Math.log(2)));
+            this.words = new AtomicLongArray((bits + 63) >>> 6);
+        }
+
+        void put(String key) {
+            long hash = hash(key);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= probes; i++) {
+                int bit = Math.floorMod(h1 + i * h2, bits);
+                int word = bit >>> 6;
+                long mask = 1L << bit;
+                long current;
+                do {
+                    current = words.get(word);
+                } while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask));
+            }
+        }
+
+        boolean mightContain(String key) {
+            long hash = hash(key);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= probes; i++) {
+                int bit = Math.floorMod(h1 + i * h2, bits);
+                if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // 64-bit FNV-1a over the chars followed by the MurmurHash3 finalizer, so both halves are well mixed.
+        private static long hash(String key) {
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < key.length(); i++) {
+                h ^= key.charAt(i);
+                h *= 0x100000001b3L;
+            }
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
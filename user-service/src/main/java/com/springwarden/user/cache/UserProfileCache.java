@@ -0,0 +1,141 @@
+package com.springwarden.user.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.springwarden.common.dto.UserDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * In-process cache of ready-to-serialize profiles, keyed by id with a secondary email -> id index.
+ * Entries are kept current by user-events (see UserEventListener and UserProfileCacheListener);
+ * the TTL only bounds staleness if an event is ever missed.
+ * <p>
+ * Loads go through Caffeine's per-key compute, so an event applied while a DB read for the same
+ * id is in flight waits for it and then overwrites the possibly older value.
+ */
+@Component
+public class UserProfileCache {
+
+    private final boolean enabled;
+    private final long maxSize;
+    private final Cache<Long, UserDto> byId;
+    private final Cache<String, Long> idByEmail;
+
+    public UserProfileCache(@Value("${user-service.profile-cache.enabled:true}") boolean enabled,
+                            @Value("${user-service.profile-cache.max-size:100000}") long maxSize,
+                            @Value("${user-service.profile-cache.ttl:PT30M}") Duration ttl,
+                            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxSize = maxSize;
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.idByEmail = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+        // cache.gets{result=hit|miss}, cache.evictions, cache.size, ... tagged cache=user-profiles
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, "user-profiles");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long maxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return The cached profile, or the loader's result (cached if non-null).
+     */
+    public UserDto getById(Long id, Function<Long, UserDto> loader) {
+        if (!enabled) {
+            return loader.apply(id);
+        }
+        UserDto user = byId.get(id, key -> freeze(loader.apply(key)));
+        if (user != null) {
+            idByEmail.put(user.email(), user.id());
+        }
+        return user;
+    }
+
+    /**
+     * @return The cached profile for the email, or the loader's result (cached if non-null).
+     */
+    public UserDto getByEmail(String email, Supplier<UserDto> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        Long id = idByEmail.getIfPresent(email);
+        if (id != null) {
+            UserDto cached = byId.getIfPresent(id);
+            // The index can briefly point at an id whose email has since changed.
+            if (cached != null && cached.email().equals(email)) {
+                return cached;
+            }
+        }
+        UserDto loaded = loader.get();
+        if (loaded == null) {
+            return null;
+        }
+        // If an event stored a newer state for this id meanwhile, keep that one.
+        UserDto user = byId.get(loaded.id(), key -> freeze(loaded));
+        idByEmail.put(user.email(), user.id());
+        return user.email().equals(email) ? user : loaded;
+    }
+
+    /**
+     * Stores the latest state of a profile, as carried by a CREATED/UPDATED event.
+     */
+    public void put(UserDto user) {
+        if (!enabled) {
+            return;
+        }
+        UserDto previous = byId.asMap().put(user.id(), freeze(user));
+        if (previous != null && !previous.email().equals(user.email())) {
+            idByEmail.asMap().remove(previous.email(), previous.id());
+        }
+        idByEmail.put(user.email(), user.id());
+    }
+
+    /**
+     * Adds a profile read during warm-up, unless an event has already stored a (newer) state for it.
+     */
+    public void warm(UserDto user) {
+        if (enabled && byId.asMap().putIfAbsent(user.id(), freeze(user)) == null) {
+            idByEmail.put(user.email(), user.id());
+        }
+    }
+
+    public void evict(Long id) {
+        if (!enabled) {
+            return;
+        }
+        UserDto previous = byId.asMap().remove(id);
+        if (previous != null) {
+            idByEmail.asMap().remove(previous.email(), id);
+        }
+    }
+
+    // Cached values are shared between requests, so make sure nobody can mutate the role set.
+    private static UserDto freeze(UserDto user) {
+        if (user == null) {
+            return null;
+        }
+        // Set.copyOf returns its argument when it is already immutable.
+        Set<String> roles = user.roles() != null ? Set.copyOf(user.roles()) : Set.of();
+        return roles == user.roles() ? user
+                : new UserDto(user.id(), user.email(), user.firstName(), user.lastName(), roles, user.enabled());
+    }
+}
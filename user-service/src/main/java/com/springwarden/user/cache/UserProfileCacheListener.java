@@ -0,0 +1,40 @@
+package com.springwarden.user.cache;
+
+import com.springwarden.common.event.UserEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps this instance's profile cache current for users whose events are applied by another
+ * user-service instance. UserEventListener shares a consumer group, so each instance only sees its
+ * own partitions; this listener joins a group unique to the instance (see KafkaConsumerConfig).
+ */
+@Component
+@ConditionalOnProperty(name = "user-service.profile-cache.enabled", havingValue = "true", matchIfMissing = true)
+public class UserProfileCacheListener {
+
+    private static final Logger log = LoggerFactory.getLogger(UserProfileCacheListener.class);
+    private final UserProfileCache userProfileCache;
+
+    @Autowired
+    public UserProfileCacheListener(UserProfileCache userProfileCache) {
+        this.userProfileCache = userProfileCache;
+    }
+
+    @KafkaListener(topics = "user-events", containerFactory = "userProfileCacheListenerFactory")
+    public void onUserEvent(UserEvent event) {
+        if (event == null || event.user() == null || event.user().id() == null) {
+            return;
+        }
+        log.debug("Refreshing cached profile {} after {} event", event.user().id(), event.eventType());
+        switch (event.eventType()) {
+            case "CREATED", "UPDATED" -> userProfileCache.put(event.user());
+            case "DELETED" -> userProfileCache.evict(event.user().id());
+            default -> { }
+        }
+    }
+}
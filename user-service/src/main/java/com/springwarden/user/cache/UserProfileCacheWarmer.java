@@ -0,0 +1,62 @@
+package com.springwarden.user.cache;
+
+import com.springwarden.common.dto.UserDto;
+import com.springwarden.common.dto.UserPage;
+import com.springwarden.user.service.UserService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Pre-loads the profile cache from the database once the application is up, so the first requests
+ * after a deploy don't all miss. Reads active profiles in keyset pages until warm-up-size is reached.
+ */
+@Component
+public class UserProfileCacheWarmer {
+
+    private static final Logger log = LoggerFactory.getLogger(UserProfileCacheWarmer.class);
+
+    private final UserService userService;
+    private final UserProfileCache userProfileCache;
+    private final long warmUpSize;
+
+    @Autowired
+    public UserProfileCacheWarmer(UserService userService,
+                                  UserProfileCache userProfileCache,
+                                  @Value("${user-service.profile-cache.warm-up-size:10000}") long warmUpSize) {
+        this.userService = userService;
+        this.userProfileCache = userProfileCache;
+        this.warmUpSize = warmUpSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long limit = Math.min(warmUpSize, userProfileCache.maxSize());
+        if (!userProfileCache.isEnabled() || limit <= 0) {
+            return;
+        }
+        long start = System.nanoTime();
+        long loaded = 0;
+        Long cursor = null;
+        try {
+            do {
+                int pageSize = (int) Math.min(UserService.MAX_PAGE_SIZE, limit - loaded);
+                UserPage page = userService.getUsersPage(cursor, pageSize, true);
+                for (UserDto user : page.users()) {
+                    userProfileCache.warm(user);
+                }
+                loaded += page.users().size();
+                cursor = page.nextCursor();
+            } while (cursor != null && loaded < limit);
+        } catch (RuntimeException e) {
+            // A cold cache is only slower, never wrong; don't fail startup over it.
+            log.warn("Profile cache warm-up stopped after {} profile(s): {}", loaded, e.getMessage());
+            return;
+        }
+        log.info("Warmed profile cache with {} profile(s) in {} ms", loaded, (System.nanoTime() - start) / 1_000_000);
+    }
+}
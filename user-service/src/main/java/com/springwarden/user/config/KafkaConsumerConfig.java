@@ -1,17 +1,25 @@
 package com.springwarden.user.config;
 
+import com.springwarden.common.event.UserEventDeserializer;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.MicrometerConsumerListener;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
 @Configuration
 public class KafkaConsumerConfig {
@@ -26,6 +34,30 @@ public class KafkaConsumerConfig {
     @Value("${spring.kafka.consumer.properties.spring.json.trusted.packages}")
     private String trustedPackages;
 
+    // Wire format for user-events: "json" (Spring's JsonDeserializer) or "binary" (UserEventCodec).
+    // The binary deserializer also reads JSON records, so switch consumers before the producer.
+    @Value("${user-events.codec:json}")
+    private String userEventsCodec;
+
+    // Upper bound on how many events UserEventListener applies in one transaction.
+    @Value("${spring.kafka.consumer.max-poll-records:500}")
+    private int maxPollRecords;
+
+    // Consumer threads; each owns a subset of the user-events partitions. More than the partition count is wasted.
+    @Value("${spring.kafka.listener.concurrency:3}")
+    private int concurrency;
+
+    // Threads used to write the stripes of a large batch in parallel (see UserEventListener).
+    @Value("${user-service.events.parallelism:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}")
+    private int eventParallelism;
+
+    // spring.threads.virtual.enabled switches Tomcat and Boot's executors; see useVirtualThreads for listeners.
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Bean
     public ConsumerFactory<String, Object> consumerFactory() {
         Map<String, Object> props = new HashMap<>();
@@ -34,12 +66,17 @@ public class KafkaConsumerConfig {
 
         // As defined in the original application.yml
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG,
+                "binary".equals(userEventsCodec) ? UserEventDeserializer.class : JsonDeserializer.class);
 
         // This is the property that allows the JsonDeserializer to work correctly and securely
         props.put(JsonDeserializer.TRUSTED_PACKAGES, trustedPackages);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
 
-        return new DefaultKafkaConsumerFactory<>(props);
+        DefaultKafkaConsumerFactory<String, Object> factory = new DefaultKafkaConsumerFactory<>(props);
+        // Exposes the client's own metrics, including per-partition kafka.consumer.fetch.manager.records.lag.
+        factory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        return factory;
     }
 
     @Bean
@@ -47,6 +84,60 @@ public class KafkaConsumerConfig {
         ConcurrentKafkaListenerContainerFactory<String, Object> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
+        // Deliver each poll as a List so events can be collapsed and written with JDBC batches.
+        factory.setBatchListener(true);
+        factory.setConcurrency(concurrency);
+        useVirtualThreads(factory, "user-events-listener-");
+        return factory;
+    }
+
+    @Bean(name = "userEventExecutor")
+    public ThreadPoolTaskExecutor userEventExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(eventParallelism);
+        executor.setMaxPoolSize(eventParallelism);
+        // Each consumer thread submits at most eventParallelism stripes and waits for them.
+        executor.setQueueCapacity(eventParallelism * concurrency);
+        executor.setThreadNamePrefix("user-events-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Consumer for profile cache updates. The group id is unique per instance, so every
+     * user-service node receives every user event, not just those of its own partitions.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "user-service.profile-cache.enabled", havingValue = "true", matchIfMissing = true)
+    public ConsumerFactory<String, Object> userProfileCacheConsumerFactory() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, "user-service-cache-" + UUID.randomUUID());
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG,
+                "binary".equals(userEventsCodec) ? UserEventDeserializer.class : JsonDeserializer.class);
+        props.put(JsonDeserializer.TRUSTED_PACKAGES, trustedPackages);
+        return new DefaultKafkaConsumerFactory<>(props);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "user-service.profile-cache.enabled", havingValue = "true", matchIfMissing = true)
+    public ConcurrentKafkaListenerContainerFactory<String, Object> userProfileCacheListenerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(userProfileCacheConsumerFactory());
+        useVirtualThreads(factory, "profile-cache-listener-");
         return factory;
     }
-}
\ No newline at end of file
+
+    // In virtual-thread mode listeners run on virtual threads too, like request handling.
+    // Boot only applies spring.threads.virtual.enabled to the container factory it creates itself.
+    private void useVirtualThreads(ConcurrentKafkaListenerContainerFactory<String, Object> factory, String prefix) {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(prefix);
+            executor.setVirtualThreads(true);
+            factory.getContainerProperties().setListenerTaskExecutor(executor);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.springwarden.user.config;
+
+import com.springwarden.common.model.RoleMaskMigration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@Configuration
+public class RoleMaskMigrationConfig {
+
+    @Bean
+    public RoleMaskMigration roleMaskMigration(JdbcTemplate jdbcTemplate,
+                                               @Value("${roles.legacy-migration.enabled:true}") boolean enabled) {
+        return new RoleMaskMigration(jdbcTemplate, "user_profiles", "user_profile_roles", "user_profile_id", enabled);
+    }
+}
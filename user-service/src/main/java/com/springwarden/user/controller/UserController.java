@@ -1,11 +1,19 @@
 package com.springwarden.user.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.springwarden.common.dto.UserDto;
+import com.springwarden.common.dto.UserPage;
 import com.springwarden.user.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
@@ -15,6 +23,9 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     // ----- General Endpoints (accessible by USER, MANAGER, ADMIN) -----
 
     @GetMapping("/{id}")
@@ -34,13 +45,50 @@ public class UserController {
 
     // ----- Admin-only Endpoints (protected by ADMIN role in API Gateway) -----
 
+    /**
+     * Every profile in one response, as before paging existed. Kept for existing admin clients; prefer
+     * /admin/all/page or /admin/export for large tables.
+     */
     @GetMapping("/admin/all")
     public ResponseEntity<List<UserDto>> getAllUsersForAdmin() {
-        return ResponseEntity.ok(userService.getAllUsers());
+        return ResponseEntity.ok(userService.getAllUsers(false));
     }
 
     @GetMapping("/admin/active")
     public ResponseEntity<List<UserDto>> getActiveUsersForAdmin() {
-        return ResponseEntity.ok(userService.getActiveUsers());
+        return ResponseEntity.ok(userService.getAllUsers(true));
+    }
+
+    @GetMapping("/admin/all/page")
+    public ResponseEntity<UserPage> getAllUsersPageForAdmin(@RequestParam(required = false) Long afterId,
+                                                            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(userService.getUsersPage(afterId, limit, false));
+    }
+
+    @GetMapping("/admin/active/page")
+    public ResponseEntity<UserPage> getActiveUsersPageForAdmin(@RequestParam(required = false) Long afterId,
+                                                               @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(userService.getUsersPage(afterId, limit, true));
+    }
+
+    /**
+     * Full export as newline-delimited JSON, one UserDto per line, streamed straight from a DB cursor.
+     */
+    @GetMapping(value = "/admin/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportUsersForAdmin(@RequestParam(defaultValue = "false") boolean activeOnly) {
+        StreamingResponseBody body = out -> {
+            // Jackson would otherwise close the response stream after the first value.
+            ObjectWriter writer = objectMapper.writerFor(UserDto.class).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            userService.streamUsers(activeOnly, user -> {
+                try {
+                    writer.writeValue(out, user);
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(body);
     }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.springwarden.user.entity;
 
 import com.springwarden.common.model.Role;
+import com.springwarden.common.model.RoleSetConverter;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -31,10 +32,9 @@ public class UserProfile {
     private String firstName;
     private String lastName;
 
-    @Enumerated(EnumType.STRING)
-    @ElementCollection(fetch = FetchType.EAGER)
-    @CollectionTable(name = "user_profile_roles", joinColumns = @JoinColumn(name = "user_profile_id"))
-    @Column(name = "role")
+    // Stored as a bitmask column on this row; the old user_profile_roles join table is only read by RoleMaskMigration.
+    @Convert(converter = RoleSetConverter.class)
+    @Column(name = "role_mask")
     private Set<Role> roles;
 
     private boolean enabled;
@@ -0,0 +1,104 @@
+package com.springwarden.user.repository;
+
+import com.springwarden.common.dto.UserDto;
+import com.springwarden.common.model.Role;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * JDBC batch writes for user profiles, used when replaying user-events in bulk.
+ * Each call issues one batched statement instead of a select + insert/update per row.
+ * Operates on the same table JPA maps for UserProfile; roles are written as the role_mask bitmask.
+ */
+@Repository
+public class UserProfileBulkRepository {
+
+    // Standard SQL MERGE, supported by H2. created_at is only set on insert.
+    private static final String MERGE_PROFILE = """
+            MERGE INTO user_profiles p
+            USING (VALUES (CAST(? AS BIGINT), CAST(? AS VARCHAR), CAST(? AS VARCHAR), CAST(? AS VARCHAR),
+                           CAST(? AS INTEGER), CAST(? AS BOOLEAN), CAST(? AS TIMESTAMP)))
+                AS v(id, email, first_name, last_name, role_mask, enabled, ts)
+            ON p.id = v.id
+            WHEN MATCHED THEN UPDATE SET email = v.email, first_name = v.first_name, last_name = v.last_name,
+                                         role_mask = v.role_mask, enabled = v.enabled, updated_at = v.ts
+            WHEN NOT MATCHED THEN INSERT (id, email, first_name, last_name, role_mask, enabled, created_at, updated_at)
+                                  VALUES (v.id, v.email, v.first_name, v.last_name, v.role_mask, v.enabled, v.ts, v.ts)
+            """;
+
+    private static final String UPSERT_PROFILE_POSTGRES = """
+            INSERT INTO user_profiles (id, email, first_name, last_name, role_mask, enabled, created_at, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (id) DO UPDATE SET email = EXCLUDED.email, first_name = EXCLUDED.first_name,
+                last_name = EXCLUDED.last_name, role_mask = EXCLUDED.role_mask, enabled = EXCLUDED.enabled,
+                updated_at = EXCLUDED.updated_at
+            """;
+
+    private static final String DELETE_PROFILE = "DELETE FROM user_profiles WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean postgres;
+
+    @Autowired
+    public UserProfileBulkRepository(JdbcTemplate jdbcTemplate, DataSource dataSource) throws Exception {
+        this.jdbcTemplate = jdbcTemplate;
+        String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+        this.postgres = "PostgreSQL".equalsIgnoreCase(product);
+    }
+
+    /**
+     * Inserts or updates every profile, including its role set.
+     */
+    public void upsertAll(Collection<UserDto> users) {
+        if (users.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        if (postgres) {
+            jdbcTemplate.batchUpdate(UPSERT_PROFILE_POSTGRES, users, users.size(), (ps, user) -> {
+                ps.setLong(1, user.id());
+                ps.setString(2, user.email());
+                ps.setString(3, user.firstName());
+                ps.setString(4, user.lastName());
+                ps.setInt(5, roleMask(user));
+                ps.setBoolean(6, user.enabled());
+                ps.setTimestamp(7, now);
+                ps.setTimestamp(8, now);
+            });
+        } else {
+            jdbcTemplate.batchUpdate(MERGE_PROFILE, users, users.size(), (ps, user) -> {
+                ps.setLong(1, user.id());
+                ps.setString(2, user.email());
+                ps.setString(3, user.firstName());
+                ps.setString(4, user.lastName());
+                ps.setInt(5, roleMask(user));
+                ps.setBoolean(6, user.enabled());
+                ps.setTimestamp(7, now);
+            });
+        }
+    }
+
+    public void deleteAll(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(DELETE_PROFILE, ids, ids.size(), (ps, id) -> ps.setLong(1, id));
+    }
+
+    private static int roleMask(UserDto user) {
+        int mask = 0;
+        for (String role : user.roles()) {
+            // Role.valueOf rejects unknown role names, as the JPA enum mapping would.
+            mask |= Role.valueOf(role).bit();
+        }
+        return mask;
+    }
+}
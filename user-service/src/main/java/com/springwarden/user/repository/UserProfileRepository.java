@@ -1,14 +1,39 @@
 package com.springwarden.user.repository;
 
 import com.springwarden.user.entity.UserProfile;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface UserProfileRepository extends JpaRepository<UserProfile, Long> {
     Optional<UserProfile> findByEmail(String email);
     List<UserProfile> findByEnabledTrue();
-}
\ No newline at end of file
+
+    // Keyset pagination: seeks on the primary key instead of OFFSET, so every page costs the same.
+    List<UserProfile> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable limit);
+    List<UserProfile> findByEnabledTrueAndIdGreaterThanOrderByIdAsc(Long afterId, Pageable limit);
+
+    /**
+     * Flat rows of (id, email, firstName, lastName, enabled, roles), one per profile, ordered by id.
+     * Roles come from the role_mask column already decoded to a Set of Role, so no join is needed.
+     */
+    @Query("select p.id, p.email, p.firstName, p.lastName, p.enabled, p.roles from UserProfile p " +
+           "where (:activeOnly = false or p.enabled = true) order by p.id")
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    Stream<Object[]> streamProfileRows(@Param("activeOnly") boolean activeOnly);
+}
@@ -0,0 +1,77 @@
+package com.springwarden.user.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.springwarden.common.exception.ApiError;
+import com.springwarden.common.util.IdentityAssertion;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+/**
+ * Accepts /api/** requests only if they carry an X-User-Assertion issued by the gateway for the
+ * X-User-Email/X-User-Roles headers they present. This replaces re-verifying the JWT here and stops
+ * clients that reach the service directly from choosing their own identity.
+ */
+@Component
+public class IdentityAssertionFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(IdentityAssertionFilter.class);
+
+    private final IdentityAssertion identityAssertion;
+    private final ObjectMapper objectMapper;
+    private final boolean enforce;
+
+    @Autowired
+    public IdentityAssertionFilter(IdentityAssertion identityAssertion,
+                                   ObjectMapper objectMapper,
+                                   @Value("${identity-assertion.enforce:true}") boolean enforce) {
+        this.identityAssertion = identityAssertion;
+        this.objectMapper = objectMapper;
+        this.enforce = enforce;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean valid = identityAssertion.verify(
+                request.getHeader(IdentityAssertion.EMAIL_HEADER),
+                request.getHeader(IdentityAssertion.ROLES_HEADER),
+                request.getHeader(IdentityAssertion.HEADER));
+        if (valid) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (!enforce) {
+            // Report-only mode for rolling the gateway out first.
+            log.warn("Request to {} has no valid identity assertion", request.getRequestURI());
+            chain.doFilter(request, response);
+            return;
+        }
+        ApiError apiError = new ApiError(
+                request.getRequestURI(),
+                "Missing or invalid identity assertion",
+                HttpStatus.UNAUTHORIZED.value(),
+                LocalDateTime.now()
+        );
+        response.setStatus(HttpStatus.UNAUTHORIZED.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), apiError);
+    }
+}
@@ -2,91 +2,198 @@ package com.springwarden.user.service;
 
 import com.springwarden.common.dto.UserDto;
 import com.springwarden.common.event.UserEvent;
-import com.springwarden.common.model.Role;
-import com.springwarden.user.entity.UserProfile;
-import com.springwarden.user.repository.UserProfileRepository;
+import com.springwarden.user.cache.UserProfileCache;
+import com.springwarden.user.repository.UserProfileBulkRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.propagation.Propagator;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class UserEventListener {
 
     private static final Logger log = LoggerFactory.getLogger(UserEventListener.class);
-    private final UserProfileRepository userProfileRepository;
+    private final UserProfileBulkRepository userProfileBulkRepository;
+    private final UserProfileCache userProfileCache;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor userEventExecutor;
+    private final MeterRegistry meterRegistry;
+    private final int parallelThreshold;
+    private final Timer batchTimer;
+    // Producer timestamp to processing here: outbox relay, broker and consumer poll, across hosts' clocks.
+    private final Timer lagTimer;
+    private final Propagator propagator;
 
     @Autowired
-    public UserEventListener(UserProfileRepository userProfileRepository) {
-        this.userProfileRepository = userProfileRepository;
+    public UserEventListener(UserProfileBulkRepository userProfileBulkRepository,
+                             UserProfileCache userProfileCache,
+                             TransactionTemplate transactionTemplate,
+                             @Qualifier("userEventExecutor") ThreadPoolTaskExecutor userEventExecutor,
+                             MeterRegistry meterRegistry,
+                             ObjectProvider<Propagator> propagator,
+                             @Value("${user-service.events.parallel-threshold:64}") int parallelThreshold) {
+        this.userProfileBulkRepository = userProfileBulkRepository;
+        this.userProfileCache = userProfileCache;
+        this.transactionTemplate = transactionTemplate;
+        this.userEventExecutor = userEventExecutor;
+        this.meterRegistry = meterRegistry;
+        this.parallelThreshold = parallelThreshold;
+        this.propagator = propagator.getIfAvailable(() -> Propagator.NOOP);
+        this.batchTimer = Timer.builder("user.events.batch")
+                .description("Time to apply one batch of user events, including the DB writes and cache updates")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.lagTimer = Timer.builder("user.events.lag")
+                .description("Time from a user event being created in auth-service to it being applied here")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
 
+    /**
+     * Applies one poll's worth of events.
+     * Only the last event per user id matters, so earlier ones are collapsed away before touching the DB.
+     * CREATED and UPDATED are both upserts, which also covers redelivered CREATEs (at-least-once delivery)
+     * and an UPDATE overtaking its CREATE.
+     * <p>
+     * Deletes are applied first, in one transaction, since user_profiles.email is unique and a user created
+     * in the batch may reuse a deleted user's email. Upserts of large batches are then split into stripes by
+     * email and written in parallel, one transaction per stripe, so two stripes never contend for one email.
+     * After collapsing, each user appears in exactly one stripe, and the next poll is not processed until
+     * every stripe has committed, so per-user ordering is preserved. If any stripe fails the whole batch is
+     * redelivered; re-applying the latest state per user is idempotent.
+     * <p>
+     * Once every stripe has committed, the local profile cache is updated with the same states.
+     * <p>
+     * Records are taken raw so each event's trace context can be read from its headers. Every traced
+     * event gets a "user-events process" span in the producer's trace, from the record's send time to
+     * the batch commit, so a trace shows the broker and poll wait as well as the DB write.
+     */
     @KafkaListener(topics = "user-events", groupId = "user-service-group")
-    @Transactional
-    public void handleUserEvent(UserEvent event) {
-        log.info("Received user event: Type='{}', UserEmail='{}'", event.eventType(), event.user().email());
-        UserDto userDto = event.user();
-
-        switch (event.eventType()) {
-            case "CREATED" -> createUserProfile(userDto);
-            case "UPDATED" -> updateUserProfile(userDto);
-            case "DELETED" -> deleteUserProfile(userDto.id());
-            default -> log.warn("Received unknown event type: {}", event.eventType());
+    public void handleUserEvents(List<ConsumerRecord<String, UserEvent>> records) {
+        log.info("Received batch of {} user event(s)", records.size());
+        long start = System.nanoTime();
+        List<UserEvent> events = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, UserEvent> record : records) {
+            meterRegistry.counter("user.events.received", "partition", String.valueOf(record.partition())).increment();
+            events.add(record.value());
         }
-    }
 
-    private void createUserProfile(UserDto userDto) {
-        if (userProfileRepository.existsById(userDto.id())) {
-            log.warn("Attempted to create a user profile that already exists. ID: {}", userDto.id());
-            // This might happen in at-least-once delivery scenarios. We can treat it as an update.
-            updateUserProfile(userDto);
-            return;
+        Map<Long, UserEvent> latestByUser = new LinkedHashMap<>();
+        for (UserEvent event : events) {
+            if (event == null || event.user() == null || event.user().id() == null) {
+                log.warn("Skipping user event without a user id: {}", event);
+                continue;
+            }
+            latestByUser.put(event.user().id(), event);
         }
 
-        Set<Role> roles = userDto.roles().stream().map(Role::valueOf).collect(Collectors.toSet());
-        UserProfile profile = new UserProfile(
-                userDto.id(),
-                userDto.email(),
-                userDto.firstName(),
-                userDto.lastName(),
-                roles,
-                userDto.enabled()
-        );
+        List<Span> spans = processSpans(records, latestByUser);
+        int stripes = latestByUser.size() < parallelThreshold ? 1 : userEventExecutor.getMaxPoolSize();
+        try {
+            List<Long> deletes = new ArrayList<>();
+            List<List<UserDto>> upsertStripes = new ArrayList<>(stripes);
+            for (int i = 0; i < stripes; i++) {
+                upsertStripes.add(new ArrayList<>());
+            }
+            for (UserEvent event : latestByUser.values()) {
+                switch (event.eventType()) {
+                    case "CREATED", "UPDATED" -> upsertStripes.get(stripeOf(event.user(), stripes)).add(event.user());
+                    case "DELETED" -> deletes.add(event.user().id());
+                    default -> log.warn("Received unknown event type: {}", event.eventType());
+                }
+            }
 
-        userProfileRepository.save(profile);
-        log.info("Successfully created user profile for email: {}", profile.getEmail());
+            transactionTemplate.executeWithoutResult(status -> userProfileBulkRepository.deleteAll(deletes));
+            if (stripes == 1) {
+                upsert(upsertStripes.get(0));
+            } else {
+                try {
+                    CompletableFuture.allOf(upsertStripes.stream()
+                            .map(stripe -> CompletableFuture.runAsync(() -> upsert(stripe), userEventExecutor))
+                            .toArray(CompletableFuture[]::new)).join();
+                } catch (CompletionException e) {
+                    throw e.getCause() instanceof RuntimeException cause ? cause : e;
+                }
+            }
+            upsertStripes.forEach(stripe -> stripe.forEach(userProfileCache::put));
+            deletes.forEach(userProfileCache::evict);
+        } catch (RuntimeException e) {
+            spans.forEach(span -> span.error(e));
+            throw e;
+        } finally {
+            spans.forEach(Span::end);
+        }
+        batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        long now = System.currentTimeMillis();
+        for (UserEvent event : events) {
+            if (event != null && event.timestamp() > 0) {
+                lagTimer.record(Math.max(0, now - event.timestamp()), TimeUnit.MILLISECONDS);
+            }
+        }
+        log.info("Applied {} user event(s) across {} stripe(s) ({} collapsed)",
+                latestByUser.size(), stripes, events.size() - latestByUser.size());
     }
 
-    private void updateUserProfile(UserDto userDto) {
-        UserProfile profile = userProfileRepository.findById(userDto.id())
-                .orElseGet(() -> {
-                    // Handle case where an UPDATE event arrives before CREATE (rare but possible)
-                    log.warn("Received UPDATE for non-existent user profile. Creating new profile. ID: {}", userDto.id());
-                    return new UserProfile();
-                });
+    private List<Span> processSpans(List<ConsumerRecord<String, UserEvent>> records, Map<Long, UserEvent> latestByUser) {
+        List<Span> spans = new ArrayList<>();
+        for (ConsumerRecord<String, UserEvent> record : records) {
+            if (record.headers().lastHeader("traceparent") == null) {
+                continue;
+            }
+            Span span = propagator.extract(record.headers(), UserEventListener::header)
+                    .name("user-events process")
+                    .kind(Span.Kind.CONSUMER)
+                    .tag("messaging.kafka.partition", String.valueOf(record.partition()))
+                    .tag("messaging.kafka.offset", String.valueOf(record.offset()))
+                    .startTimestamp(record.timestamp(), TimeUnit.MILLISECONDS)
+                    .start();
+            UserEvent event = record.value();
+            if (event != null && event.user() != null && event.user().id() != null) {
+                span.tag("user.id", String.valueOf(event.user().id()));
+                span.tag("user.event.type", event.eventType());
+                // Superseded by a later event for the same user in this batch, so nothing of its own was written.
+                span.tag("user.event.collapsed", String.valueOf(latestByUser.get(event.user().id()) != event));
+            }
+            spans.add(span);
+        }
+        return spans;
+    }
 
-        profile.setId(userDto.id());
-        profile.setEmail(userDto.email());
-        profile.setFirstName(userDto.firstName());
-        profile.setLastName(userDto.lastName());
-        profile.setEnabled(userDto.enabled());
-        profile.setRoles(userDto.roles().stream().map(Role::valueOf).collect(Collectors.toSet()));
+    private static String header(Headers headers, String key) {
+        Header header = headers.lastHeader(key);
+        return header == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
 
-        userProfileRepository.save(profile);
-        log.info("Successfully updated user profile for email: {}", profile.getEmail());
+    // By email, so upserts touching one unique email value always land in the same transaction.
+    private static int stripeOf(UserDto user, int stripes) {
+        Object key = user.email() != null ? user.email().toLowerCase(Locale.ROOT) : user.id();
+        return Math.floorMod(key.hashCode(), stripes);
     }
 
-    private void deleteUserProfile(Long userId) {
-        if (userProfileRepository.existsById(userId)) {
-            userProfileRepository.deleteById(userId);
-            log.info("Successfully deleted user profile with ID: {}", userId);
-        } else {
-            log.warn("Attempted to delete a non-existent user profile. ID: {}", userId);
-        }
+    private void upsert(List<UserDto> stripe) {
+        transactionTemplate.executeWithoutResult(status -> userProfileBulkRepository.upsertAll(stripe));
     }
-}
\ No newline at end of file
+}
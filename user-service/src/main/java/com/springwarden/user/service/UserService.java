@@ -1,47 +1,100 @@
 package com.springwarden.user.service;
 
 import com.springwarden.common.dto.UserDto;
+import com.springwarden.common.dto.UserPage;
 import com.springwarden.common.model.Role;
+import com.springwarden.user.cache.UserProfileCache;
 import com.springwarden.user.entity.UserProfile;
 import com.springwarden.user.exception.ResourceNotFoundException;
 import com.springwarden.user.repository.UserProfileRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional(readOnly = true)
 public class UserService {
 
+    public static final int MAX_PAGE_SIZE = 1000;
+
     @Autowired
     private UserProfileRepository userProfileRepository;
 
-    public List<UserDto> getAllUsers() {
-        return userProfileRepository.findAll().stream()
+    @Autowired
+    private UserProfileCache userProfileCache;
+
+    public UserPage getUsersPage(Long afterId, int limit, boolean activeOnly) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        long cursor = afterId != null ? afterId : Long.MIN_VALUE;
+        PageRequest page = PageRequest.ofSize(pageSize);
+
+        List<UserDto> users = (activeOnly
+                ? userProfileRepository.findByEnabledTrueAndIdGreaterThanOrderByIdAsc(cursor, page)
+                : userProfileRepository.findByIdGreaterThanOrderByIdAsc(cursor, page))
+                .stream()
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
+
+        Long nextCursor = users.size() == pageSize ? users.get(users.size() - 1).id() : null;
+        return new UserPage(users, nextCursor);
+    }
+
+    /**
+     * Every profile as one list, built from the same cursor as {@link #streamUsers} so no entities are
+     * loaded into the persistence context.
+     */
+    public List<UserDto> getAllUsers(boolean activeOnly) {
+        List<UserDto> users = new ArrayList<>();
+        streamUsers(activeOnly, users::add);
+        return users;
     }
 
+    /**
+     * Streams every profile to the sink without materialising the table: rows come from a
+     * forward-only cursor and only the current row is held in memory.
+     */
+    public void streamUsers(boolean activeOnly, Consumer<UserDto> sink) {
+        try (Stream<Object[]> rows = userProfileRepository.streamProfileRows(activeOnly)) {
+            rows.map(this::toDto).forEach(sink);
+        }
+    }
+
+    // Served from UserProfileCache; SUPPORTS keeps cache hits from opening a transaction and taking a connection.
+    @Transactional(propagation = Propagation.SUPPORTS)
     public UserDto getUserById(Long id) {
-        return userProfileRepository.findById(id)
-                .map(this::convertToDto)
-                .orElseThrow(() -> new ResourceNotFoundException("User profile not found with ID: " + id));
+        UserDto user = userProfileCache.getById(id,
+                key -> userProfileRepository.findById(key).map(this::convertToDto).orElse(null));
+        if (user == null) {
+            throw new ResourceNotFoundException("User profile not found with ID: " + id);
+        }
+        return user;
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS)
     public UserDto getUserByEmail(String email) {
-        return userProfileRepository.findByEmail(email)
-                .map(this::convertToDto)
-                .orElseThrow(() -> new ResourceNotFoundException("User profile not found with email: " + email));
+        UserDto user = userProfileCache.getByEmail(email,
+                () -> userProfileRepository.findByEmail(email).map(this::convertToDto).orElse(null));
+        if (user == null) {
+            throw new ResourceNotFoundException("User profile not found with email: " + email);
+        }
+        return user;
     }
 
-    public List<UserDto> getActiveUsers() {
-        return userProfileRepository.findByEnabledTrue().stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    @SuppressWarnings("unchecked")
+    private UserDto toDto(Object[] row) {
+        Set<String> roles = ((Set<Role>) row[5]).stream()
+                .map(Role::name)
+                .collect(Collectors.toSet());
+        return new UserDto((Long) row[0], (String) row[1], (String) row[2], (String) row[3], roles, (Boolean) row[4]);
     }
 
     private UserDto convertToDto(UserProfile profile) {
@@ -58,4 +111,4 @@ public class UserService {
                 profile.isEnabled()
         );
     }
-}
\ No newline at end of file
+}